@@ -0,0 +1,72 @@
+package com.direwolf20.core.capability;
+
+import com.direwolf20.core.registry.BenchmarkUpgrades;
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.TraitContainer;
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the allocations of a loop of 10k energy transfers on a {@link TraitEnergyStorage}, whose traits are modified by an installed
+ * upgrade. Each call reads the max energy, receive and extract traits, so the loop covers the whole trait resolution chain.
+ * <p>
+ * Run with the gc profiler: {@code gradlew jmh -PjmhInclude=EnergyTransferAllocationBenchmark -PjmhProfilers=gc}. The reported
+ * {@code gc.alloc.rate.norm} is the amount of bytes allocated per 10k calls, which should be 0 for {@link #transfer()}.
+ * {@link #transferBoxed()} reads the same traits through {@link TraitContainer#getTrait(Trait)} and serves as a reference that the
+ * profiler does see boxing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnergyTransferAllocationBenchmark {
+    private static final int CALLS = 10_000;
+
+    private TraitContainer container;
+    private TraitEnergyStorage storage;
+
+    @Setup
+    public void setup() {
+        //the second stub upgrade doubles MAX_ENERGY, so its value goes through a modifier
+        List<Upgrade> upgrades = BenchmarkUpgrades.register(2);
+        container = TraitContainer.builder()
+                .putVolatileTrait(Trait.MAX_ENERGY, () -> CALLS * 5)
+                .putTrait(Trait.MAX_EXTRACT, () -> 1000)
+                .putTrait(Trait.MAX_RECEIVE, () -> 1000)
+                .putTrait(Trait.ACTION_COST, () -> 10)
+                .build();
+        container.installUpgrade(UpgradeStack.of(upgrades.get(1), 1));
+        storage = TraitEnergyStorage.createWithDefaultTraits(container, () -> {});
+    }
+
+    @Benchmark
+    public int transfer() {
+        int transferred = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if ((i & 1) == 0)
+                transferred += storage.receiveEnergy(10, false);
+            else
+                transferred -= storage.extractEnergy(10, false);
+        }
+        return transferred + storage.getEnergyStored();
+    }
+
+    @Benchmark
+    public int transferBoxed() {
+        int transferred = 0;
+        for (int i = 0; i < CALLS; i++) {
+            int maxEnergy = container.getTrait(Trait.MAX_ENERGY).orElse(0);
+            if ((i & 1) == 0)
+                transferred += Math.min(container.getTrait(Trait.MAX_RECEIVE).orElse(0), maxEnergy);
+            else
+                transferred -= Math.min(container.getTrait(Trait.MAX_EXTRACT).orElse(0), maxEnergy);
+        }
+        return transferred;
+    }
+}
@@ -0,0 +1,75 @@
+package com.direwolf20.core.capability;
+
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.TraitContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receive and extract loops on a {@link TraitEnergyStorage}, similar to a gadget paying for one block after another, compared
+ * against paying for the same blocks through a single {@link TraitEnergyStorage.Reservation}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraitEnergyStorageBenchmark {
+    private static final int OPERATIONS = 1000;
+
+    private TraitEnergyStorage storage;
+
+    @Setup
+    public void setup() {
+        TraitContainer container = TraitContainer.builder()
+                .putVolatileTrait(Trait.MAX_ENERGY, () -> OPERATIONS * 10)
+                .putTrait(Trait.MAX_EXTRACT, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.MAX_RECEIVE, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.ACTION_COST, () -> 10)
+                .build();
+        storage = TraitEnergyStorage.createWithDefaultTraits(container, () -> {});
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS * 2)
+    public int receiveAndExtract() {
+        int transferred = 0;
+        for (int i = 0; i < OPERATIONS; i++)
+            transferred += storage.receiveEnergy(10, false);
+        for (int i = 0; i < OPERATIONS; i++)
+            transferred -= storage.extractEnergy(10, false);
+        return transferred;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int simulateExtract() {
+        int transferred = 0;
+        for (int i = 0; i < OPERATIONS; i++)
+            transferred += storage.extractEnergy(10, true);
+        return transferred;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int extractPerAction() {
+        storage.receiveEnergy(OPERATIONS * 10, false);
+        int transferred = 0;
+        for (int i = 0; i < OPERATIONS; i++)
+            transferred -= storage.extractEnergy(storage.getActionCost(), false);
+        return transferred;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int reserveAndCommit() {
+        storage.receiveEnergy(OPERATIONS * 10, false);
+        TraitEnergyStorage.Reservation reservation = storage.reserveActions(OPERATIONS)
+                .orElseThrow(IllegalStateException::new);
+        for (int i = 0; i < OPERATIONS; i++)
+            reservation.consumeAction();
+        return reservation.commit();
+    }
+}
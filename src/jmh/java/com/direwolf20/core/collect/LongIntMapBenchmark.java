@@ -0,0 +1,76 @@
+package com.direwolf20.core.collect;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills and queries a {@link LongIntHashMap} compared against a {@code HashMap<BlockPos, Integer>}, mapping positions to state ids.
+ * The maps are cleared and reused between invocations. The BlockPos instances are created up front, so that only the map itself is
+ * measured - boxing the values is part of the boxed map's cost though.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongIntMapBenchmark {
+    //a typical template has a few dozen distinct states
+    private static final int STATE_IDS = 40;
+
+    @Param({"1000", "100000", "1000000"})
+    public int entries;
+
+    private long[] positions;
+    private BlockPos[] blockPositions;
+    private LongIntHashMap map;
+    private Map<BlockPos, Integer> boxedMap;
+
+    @Setup
+    public void setup() {
+        positions = PositionSets.cube(entries);
+        blockPositions = PositionSets.toBlockPos(positions);
+        map = new LongIntHashMap();
+        boxedMap = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            map.put(positions[i], i % STATE_IDS);
+            boxedMap.put(blockPositions[i], i % STATE_IDS);
+        }
+    }
+
+    @Benchmark
+    public int fillLongIntMap() {
+        map.clear();
+        for (int i = 0; i < positions.length; i++)
+            map.put(positions[i], i % STATE_IDS);
+        return map.size();
+    }
+
+    @Benchmark
+    public int fillBoxedMap() {
+        boxedMap.clear();
+        for (int i = 0; i < blockPositions.length; i++)
+            boxedMap.put(blockPositions[i], i % STATE_IDS);
+        return boxedMap.size();
+    }
+
+    @Benchmark
+    public int getLongIntMap() {
+        int sum = 0;
+        for (long pos : positions)
+            sum += map.getOrDefault(pos, 0);
+        return sum;
+    }
+
+    @Benchmark
+    public int getBoxedMap() {
+        int sum = 0;
+        for (BlockPos pos : blockPositions)
+            sum += boxedMap.getOrDefault(pos, 0);
+        return sum;
+    }
+}
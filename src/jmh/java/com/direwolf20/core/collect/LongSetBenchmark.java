@@ -0,0 +1,98 @@
+package com.direwolf20.core.collect;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills and queries a {@link LongHashSet} and a {@link ChunkedLongSet} compared against a {@code HashSet<BlockPos>}. The sets are
+ * cleared and reused between invocations, as a pooled scratch set would be. The BlockPos instances are created up front, so that only
+ * the set itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongSetBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int entries;
+
+    private long[] positions;
+    private BlockPos[] blockPositions;
+    private LongHashSet hashSet;
+    private ChunkedLongSet chunkedSet;
+    private Set<BlockPos> boxedSet;
+
+    @Setup
+    public void setup() {
+        positions = PositionSets.cube(entries);
+        blockPositions = PositionSets.toBlockPos(positions);
+        hashSet = new LongHashSet();
+        chunkedSet = new ChunkedLongSet();
+        boxedSet = new HashSet<>();
+        for (int i = 0; i < entries; i++) {
+            hashSet.add(positions[i]);
+            chunkedSet.add(positions[i]);
+            boxedSet.add(blockPositions[i]);
+        }
+    }
+
+    @Benchmark
+    public int fillLongHashSet() {
+        hashSet.clear();
+        for (long pos : positions)
+            hashSet.add(pos);
+        return hashSet.size();
+    }
+
+    @Benchmark
+    public int fillChunkedSet() {
+        chunkedSet.clear();
+        for (long pos : positions)
+            chunkedSet.add(pos);
+        return chunkedSet.size();
+    }
+
+    @Benchmark
+    public int fillBoxedSet() {
+        boxedSet.clear();
+        for (BlockPos pos : blockPositions)
+            boxedSet.add(pos);
+        return boxedSet.size();
+    }
+
+    @Benchmark
+    public int containsLongHashSet() {
+        int found = 0;
+        for (long pos : positions) {
+            if (hashSet.contains(pos))
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsChunkedSet() {
+        int found = 0;
+        for (long pos : positions) {
+            if (chunkedSet.contains(pos))
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsBoxedSet() {
+        int found = 0;
+        for (BlockPos pos : blockPositions) {
+            if (boxedSet.contains(pos))
+                found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,32 @@
+package com.direwolf20.core.collect;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Shared position data for the collection benchmarks.
+ */
+final class PositionSets {
+    private PositionSets() {}
+
+    /**
+     * @return count packed positions filling a cube starting at some arbitrary corner, like a typical gadget selection
+     */
+    static long[] cube(int count) {
+        int side = (int) Math.ceil(Math.cbrt(count));
+        long[] positions = new long[count];
+        for (int i = 0; i < count; i++) {
+            int x = i % side;
+            int z = (i / side) % side;
+            int y = i / (side * side);
+            positions[i] = BlockPos.pack(1000 + x, 10 + y, - 2000 + z);
+        }
+        return positions;
+    }
+
+    static BlockPos[] toBlockPos(long[] positions) {
+        BlockPos[] result = new BlockPos[positions.length];
+        for (int i = 0; i < positions.length; i++)
+            result[i] = BlockPos.fromLong(positions[i]);
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package com.direwolf20.core.items;
+
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.properties.MutableProperty;
+import com.direwolf20.core.properties.Property;
+import com.direwolf20.core.properties.PropertyContainer;
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.TraitContainer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The heap retained per gadget stack by its caps, measured over 100k stacks. Like {@link ShareTagBenchmark} this works on the caps
+ * directly, as creating real ItemStacks would require bootstrapping Minecraft.
+ * <p>
+ * {@code perStack} rebuilds the trait and property containers from a fresh builder for every stack, which keeps a layout per stack -
+ * this is how {@link EnergizedItem#initCapabilities(net.minecraft.item.ItemStack, net.minecraft.nbt.CompoundNBT)} worked before
+ * layouts were shared. {@code shared} creates them from one layout per item, as it does now. The result is reported as the
+ * {@code bytesPerStack} secondary metric. Heap usage is read after forcing a full gc, so run this with a stop the world collector
+ * and don't rely on the timing results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xmx2G"})
+public class RetainedSizeBenchmark {
+    private static final int STACKS = 100_000;
+    private static final MutableProperty<Integer> MODE = Property.intBuilder().buildMutable("benchmark", "mode");
+    private static final MutableProperty<Integer> RANGE = Property.intBuilder().buildMutable("benchmark", "range");
+    private static final MutableProperty<Boolean> FUZZY = Property.booleanBuilder().buildMutable("benchmark", "fuzzy");
+
+    @Param({"perStack", "shared"})
+    public String layouts;
+
+    private PropertyContainer.Layout propertyLayout;
+    private TraitContainer.Layout traitLayout;
+    //kept reachable until the heap was measured
+    private Caps[] retained;
+
+    @Setup
+    public void setup() {
+        propertyLayout = properties().buildLayout();
+        traitLayout = traits().buildLayout();
+    }
+
+    //the same caps as a building gadget
+    private static PropertyContainer.Builder properties() {
+        return PropertyContainer.builder()
+                .putProperty(MODE, 2)
+                .putProperty(RANGE, 5)
+                .putProperty(FUZZY, true);
+    }
+
+    private static TraitContainer.Builder traits() {
+        return TraitContainer.builder()
+                .putVolatileTrait(Trait.MAX_ENERGY, () -> 500000)
+                .putTrait(Trait.MAX_EXTRACT, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.MAX_RECEIVE, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.ACTION_COST, () -> 50)
+                .putTrait(Trait.MAX_SIZE, () -> 16)
+                .putTrait(Trait.MAX_RANGE, () -> 32)
+                .putTrait(Trait.SILK_TOUCH, () -> false);
+    }
+
+    @Benchmark
+    public long retain(RetainedBytes result) {
+        boolean shared = "shared".equals(layouts);
+        long before = usedHeap();
+        retained = new Caps[STACKS];
+        for (int i = 0; i < STACKS; i++) {
+            retained[i] = shared
+                    ? new Caps(propertyLayout.createContainer(), traitLayout.createContainer())
+                    : new Caps(properties().build(), traits().build());
+        }
+        long after = usedHeap();
+        result.bytesPerStack = (double) (after - before) / STACKS;
+        return after - before;
+    }
+
+    @TearDown(Level.Iteration)
+    public void release() {
+        retained = null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedBytes {
+        public double bytesPerStack;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerStack = 0;
+        }
+    }
+
+    private static final class Caps {
+        private final PropertyContainer properties;
+        private final TraitContainer traits;
+        private final TraitEnergyStorage energy;
+
+        private Caps(PropertyContainer properties, TraitContainer traits) {
+            this.properties = properties;
+            this.traits = traits;
+            this.energy = TraitEnergyStorage.create(traits);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.direwolf20.core.items;
+
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.properties.MutableProperty;
+import com.direwolf20.core.properties.Property;
+import com.direwolf20.core.properties.PropertyContainer;
+import com.direwolf20.core.registry.BenchmarkUpgrades;
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.TraitContainer;
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import net.minecraft.nbt.CompoundNBT;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding the caps of an {@link EnergizedItem} for it's share tag, both as nbt and with the {@link ShareTagCodec}.
+ * Creating real ItemStacks would require bootstrapping Minecraft, therefore this works on the caps directly - exactly as
+ * {@link EnergizedItem#getShareTag(net.minecraft.item.ItemStack)} and {@link EnergizedItem#readShareTag(net.minecraft.item.ItemStack, CompoundNBT)}
+ * do after resolving them. The serialisation caches of the capability provider are intentionally bypassed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShareTagBenchmark {
+    private static final String KEY_ENERGY = "energy";
+    private static final String KEY_PROPERTIES = "properties";
+    private static final String KEY_TRAITS = "traits";
+    private static final MutableProperty<Integer> MODE = Property.intBuilder().buildMutable("benchmark", "mode");
+    private static final MutableProperty<Integer> RANGE = Property.intBuilder().buildMutable("benchmark", "range");
+    private static final MutableProperty<Boolean> FUZZY = Property.booleanBuilder().buildMutable("benchmark", "fuzzy");
+
+    private Caps server;
+    private Caps client;
+    private ShareTagCodec codec;
+    private CompoundNBT nbt;
+    private byte[] compact;
+
+    @Setup
+    public void setup() {
+        List<Upgrade> upgrades = BenchmarkUpgrades.register(3);
+        PropertyContainer.Layout propertyLayout = PropertyContainer.builder()
+                .putProperty(MODE, 2)
+                .putProperty(RANGE, 5)
+                .putProperty(FUZZY, true)
+                .buildLayout();
+        TraitContainer.Layout traitLayout = TraitContainer.builder()
+                .putVolatileTrait(Trait.MAX_ENERGY, () -> 500000)
+                .putTrait(Trait.MAX_EXTRACT, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.MAX_RECEIVE, () -> Integer.MAX_VALUE)
+                .putTrait(Trait.MAX_RANGE, () -> 16)
+                .putTrait(Trait.SILK_TOUCH, () -> false)
+                .buildLayout();
+        server = new Caps(propertyLayout, traitLayout);
+        for (Upgrade upgrade : upgrades)
+            server.traits.installUpgrade(UpgradeStack.of(upgrade, 2));
+        server.energy.receiveEnergy(123456, false);
+        client = new Caps(propertyLayout, traitLayout);
+
+        codec = new ShareTagCodec(propertyLayout);
+        nbt = encodeNbt();
+        compact = encodeCompact();
+    }
+
+    @Benchmark
+    public CompoundNBT encodeNbt() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.put(KEY_PROPERTIES, server.properties.serializeNBT());
+        nbt.put(KEY_TRAITS, server.traits.serializeNBT(false));
+        nbt.put(KEY_ENERGY, server.energy.serializeNBT());
+        return nbt;
+    }
+
+    @Benchmark
+    public TraitEnergyStorage decodeNbt() {
+        client.properties.deserializeNBT(nbt.getCompound(KEY_PROPERTIES));
+        client.traits.deserializeNBT(nbt.getCompound(KEY_TRAITS));
+        client.energy.deserializeNBT(nbt.get(KEY_ENERGY));
+        return client.energy;
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() {
+        return codec.encode(server.properties, server.traits, server.energy);
+    }
+
+    @Benchmark
+    public boolean decodeCompact() {
+        return codec.decode(compact, client.properties, client.traits, client.energy);
+    }
+
+    private static final class Caps {
+        private final PropertyContainer properties;
+        private final TraitContainer traits;
+        private final TraitEnergyStorage energy;
+
+        private Caps(PropertyContainer.Layout propertyLayout, TraitContainer.Layout traitLayout) {
+            this.properties = propertyLayout.createContainer();
+            this.traits = traitLayout.createContainer();
+            this.energy = TraitEnergyStorage.create(traits);
+        }
+    }
+}
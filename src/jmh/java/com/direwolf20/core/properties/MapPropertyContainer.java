@@ -0,0 +1,69 @@
+package com.direwolf20.core.properties;
+
+import net.minecraft.nbt.CompoundNBT;
+
+import java.util.*;
+
+/**
+ * The map based {@link IPropertyContainer} {@link PropertyContainer} used to be, kept as a baseline for {@link PropertyContainerBenchmark}.
+ */
+final class MapPropertyContainer implements IPropertyContainer {
+    private final Map<Property<?>, Object> properties;
+    private final Map<String, Property<?>> propertyByName;
+    private final Set<MutableProperty<?>> mutableProperties;
+
+    MapPropertyContainer() {
+        this.properties = new IdentityHashMap<>();
+        this.propertyByName = new HashMap<>();
+        this.mutableProperties = Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    <T> MapPropertyContainer putProperty(Property<T> prop, T value) {
+        properties.put(prop, value);
+        propertyByName.put(prop.getName(), prop);
+        return this;
+    }
+
+    <T> MapPropertyContainer putProperty(MutableProperty<T> prop, T value) {
+        putProperty(prop.getProperty(), value);
+        mutableProperties.add(prop);
+        return this;
+    }
+
+    @Override
+    public <T> Optional<T> getProperty(Property<T> property) {
+        return Optional.ofNullable(properties.get(property))
+                .map(property::cast);
+    }
+
+    @Override
+    public <T> boolean setProperty(MutableProperty<T> property, T value) {
+        if (mutableProperties.contains(property)) {
+            properties.put(property.getProperty(), value);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Property<?>> listProperties() {
+        return Collections.unmodifiableSet(properties.keySet());
+    }
+
+    @Override
+    public CompoundNBT serializeNBT() {
+        CompoundNBT nbt = new CompoundNBT();
+        for (Map.Entry<Property<?>, Object> entry : properties.entrySet())
+            nbt.put(entry.getKey().getName(), entry.getKey().serializeValue(entry.getValue()));
+        return nbt;
+    }
+
+    @Override
+    public void deserializeNBT(CompoundNBT nbt) {
+        for (String key : nbt.keySet()) {
+            Property<?> prop = propertyByName.get(key);
+            if (prop != null)
+                properties.put(prop, prop.deserialize(nbt.get(key)));
+        }
+    }
+}
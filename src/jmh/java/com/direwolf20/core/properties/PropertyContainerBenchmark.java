@@ -0,0 +1,88 @@
+package com.direwolf20.core.properties;
+
+import net.minecraft.nbt.CompoundNBT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ordinal indexed {@link PropertyContainer} with the {@link MapPropertyContainer map based} implementation it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyContainerBenchmark {
+    @Param({"2", "8"})
+    public int propertyCount;
+
+    private MutableProperty<Integer>[] properties;
+    private PropertyContainer arrayContainer;
+    private MapPropertyContainer mapContainer;
+    private CompoundNBT serialized;
+    private int counter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        properties = new MutableProperty[propertyCount];
+        PropertyContainer.Builder builder = PropertyContainer.builder();
+        mapContainer = new MapPropertyContainer();
+        for (int i = 0; i < propertyCount; i++) {
+            properties[i] = Property.intBuilder().buildMutable("benchmark", "property_" + i);
+            builder.putProperty(properties[i], i);
+            mapContainer.putProperty(properties[i], i);
+        }
+        arrayContainer = builder.build();
+        serialized = arrayContainer.serializeNBT();
+    }
+
+    private MutableProperty<Integer> nextProperty() {
+        return properties[(counter++ & Integer.MAX_VALUE) % properties.length];
+    }
+
+    @Benchmark
+    public Object getArray() {
+        return arrayContainer.getProperty(nextProperty());
+    }
+
+    @Benchmark
+    public Object getMap() {
+        return mapContainer.getProperty(nextProperty());
+    }
+
+    @Benchmark
+    public boolean setArray() {
+        return arrayContainer.setProperty(nextProperty(), counter);
+    }
+
+    @Benchmark
+    public boolean setMap() {
+        return mapContainer.setProperty(nextProperty(), counter);
+    }
+
+    @Benchmark
+    public CompoundNBT serializeArray() {
+        return arrayContainer.serializeNBT();
+    }
+
+    @Benchmark
+    public CompoundNBT serializeMap() {
+        return mapContainer.serializeNBT();
+    }
+
+    @Benchmark
+    public void deserializeArray(Blackhole blackhole) {
+        arrayContainer.deserializeNBT(serialized);
+        blackhole.consume(arrayContainer);
+    }
+
+    @Benchmark
+    public void deserializeMap(Blackhole blackhole) {
+        mapContainer.deserializeNBT(serialized);
+        blackhole.consume(mapContainer);
+    }
+}
@@ -0,0 +1,42 @@
+package com.direwolf20.core.registry;
+
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeBuilder;
+import com.google.common.collect.Range;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stub upgrades for benchmarks, which are made available through {@link Registries#getUpgradeLookup()} without any Forge registry.
+ */
+public final class BenchmarkUpgrades {
+    private BenchmarkUpgrades() {}
+
+    /**
+     * Creates the given number of upgrades with valid tiers 1 to 3. Each of them adds it's tier to {@link Trait#MAX_RANGE}, every
+     * second one additionally doubles {@link Trait#MAX_ENERGY} and every third one activates {@link Trait#SILK_TOUCH}. The created
+     * upgrades replace all previously registered stub upgrades.
+     *
+     * @param count The number of upgrades to create
+     * @return The created upgrades, indexed by their integer id
+     */
+    public static List<Upgrade> register(int count) {
+        List<Upgrade> upgrades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UpgradeBuilder builder = UpgradeBuilder.create()
+                    .sumModifier(Trait.MAX_RANGE, stack -> stack.getLevel());
+            if (i % 2 == 1)
+                builder.multiplicationModifier(Trait.MAX_ENERGY, stack -> 2);
+            if (i % 3 == 2)
+                builder.activationModifier(Trait.SILK_TOUCH);
+            Upgrade upgrade = builder.build(Range.closed(1, 3));
+            upgrade.setRegistryName(new ResourceLocation("benchmark", "upgrade_" + i));
+            upgrades.add(upgrade);
+        }
+        Registries.setUpgradeLookup(UpgradeLookup.build(upgrades, upgrades::indexOf));
+        return upgrades;
+    }
+}
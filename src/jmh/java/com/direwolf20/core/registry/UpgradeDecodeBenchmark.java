@@ -0,0 +1,53 @@
+package com.direwolf20.core.registry;
+
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import net.minecraft.nbt.ListNBT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes 10k serialized upgrade lists via {@link UpgradeStack#deserialize}, backed by {@link BenchmarkUpgrades} instead of Forge's
+ * registry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpgradeDecodeBenchmark {
+    private static final int LIST_COUNT = 10_000;
+    private static final int UPGRADE_COUNT = 8;
+
+    @Param({"true", "false"})
+    public boolean persistent;
+
+    private ListNBT[] lists;
+
+    @Setup
+    public void setup() {
+        List<Upgrade> upgrades = BenchmarkUpgrades.register(UPGRADE_COUNT);
+
+        lists = new ListNBT[LIST_COUNT];
+        for (int i = 0; i < LIST_COUNT; i++) {
+            ListNBT list = new ListNBT();
+            //up to 4 upgrades per list, as found on a typical gadget
+            for (int j = 0; j < i % 5; j++)
+                list.add(UpgradeStack.of(upgrades.get((i + j) % UPGRADE_COUNT), 1 + (i + j) % 3).serializeNBT(persistent));
+            lists[i] = list;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LIST_COUNT)
+    public void decodeLists(Blackhole blackhole) {
+        for (ListNBT list : lists) {
+            for (int i = 0; i < list.size(); i++)
+                blackhole.consume(UpgradeStack.deserialize(list.getCompound(i)));
+        }
+    }
+}
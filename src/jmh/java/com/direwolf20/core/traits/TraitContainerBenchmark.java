@@ -0,0 +1,66 @@
+package com.direwolf20.core.traits;
+
+import com.direwolf20.core.registry.BenchmarkUpgrades;
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trait lookups of a {@link TraitContainer} with a varying number of installed upgrades, as well as installing and removing an upgrade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraitContainerBenchmark {
+    @Param({"0", "1", "5"})
+    public int installedUpgrades;
+
+    private TraitContainer container;
+    private UpgradeStack extraUpgrade;
+
+    @Setup
+    public void setup() {
+        List<Upgrade> upgrades = BenchmarkUpgrades.register(installedUpgrades + 1);
+        container = TraitContainer.builder()
+                .putVolatileTrait(Trait.MAX_ENERGY, () -> 1000)
+                .putTrait(Trait.MAX_RANGE, () -> 16)
+                .putTrait(Trait.MAX_SIZE, () -> 64)
+                .putTrait(Trait.SILK_TOUCH, () -> false)
+                .build();
+        for (int i = 0; i < installedUpgrades; i++)
+            container.installUpgrade(UpgradeStack.of(upgrades.get(i), 1));
+        extraUpgrade = UpgradeStack.of(upgrades.get(installedUpgrades), 2);
+    }
+
+    @Benchmark
+    public Optional<Integer> getTrait() {
+        return container.getTrait(Trait.MAX_RANGE);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return container.getInt(Trait.MAX_RANGE, 0);
+    }
+
+    @Benchmark
+    public int getIntVolatile() {
+        return container.getInt(Trait.MAX_ENERGY, 0);
+    }
+
+    @Benchmark
+    public boolean getBoolean() {
+        return container.getBoolean(Trait.SILK_TOUCH, false);
+    }
+
+    @Benchmark
+    public boolean installAndRemoveUpgrade() {
+        return container.installUpgrade(extraUpgrade) & container.removeUpgrade(extraUpgrade);
+    }
+}
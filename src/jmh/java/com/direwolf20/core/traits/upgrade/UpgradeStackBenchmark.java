@@ -0,0 +1,32 @@
+package com.direwolf20.core.traits.upgrade;
+
+import com.direwolf20.core.registry.BenchmarkUpgrades;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single {@link UpgradeStack} nbt round trip, in both the persistent (name based) and the sync (id based) format.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpgradeStackBenchmark {
+    @Param({"true", "false"})
+    public boolean persistent;
+
+    private UpgradeStack stack;
+
+    @Setup
+    public void setup() {
+        stack = UpgradeStack.of(BenchmarkUpgrades.register(4).get(2), 2);
+    }
+
+    @Benchmark
+    public UpgradeStack roundTrip() {
+        return UpgradeStack.deserialize(stack.serializeNBT(persistent));
+    }
+}
@@ -1,11 +1,15 @@
 package com.direwolf20.buildinggadgets;
 
+import com.direwolf20.buildinggadgets.common.commands.BuildingGadgetsCommand;
+import com.direwolf20.buildinggadgets.common.config.Config;
 import com.direwolf20.buildinggadgets.common.items.BGItems;
 import com.direwolf20.core.DireCore20;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
@@ -26,6 +30,7 @@ public class BuildingGadgets
         bus.addListener(this::setup);
         bus.addListener(this::clientSetup);
         BGItems.ITEMS.register(bus);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, Config.SERVER_SPEC);
 
         // Todo: remove once events have their own classes
         MinecraftForge.EVENT_BUS.register(this);
@@ -41,5 +46,6 @@ public class BuildingGadgets
 
     @SubscribeEvent
     public void onServerStarting(FMLServerStartingEvent event) {
+        BuildingGadgetsCommand.register(event.getCommandDispatcher());
     }
 }
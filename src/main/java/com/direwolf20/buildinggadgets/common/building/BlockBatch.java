@@ -0,0 +1,128 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.core.collect.LongHashSet;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.common.util.Constants.BlockFlags;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Writes block states to a world one chunk section at a time. Within a section, states are set without any neighbor notifications or
+ * shape updates - the {@link Update updates} which are still needed run once per batch in {@link #flush()}, which happens
+ * automatically whenever a position in a different section is set. Callers should therefore set positions grouped by section, like
+ * {@link PlacementPlan PlacementPlans} are ordered.
+ * <p>
+ * Shape updates are run for every changed position, neighbor notifications only for positions bordering a block outside the batch -
+ * blocks inside the batch already reflect the final state of each other. Client sync and lighting are left to vanilla, which already
+ * queues them: changed positions are collected per chunk and sent as one multi block change per tick, light checks are processed in
+ * bulk by the light engine.
+ * <p>
+ * Batches must be {@link #flush() flushed} before the end of the tick they were modified in. Not thread safe.
+ */
+public final class BlockBatch {
+    //sync to clients, but don't run any neighbor shape updates (vanilla's flag 16, despite Forge's name)
+    private static final int FLAGS_DEFERRED = BlockFlags.BLOCK_UPDATE | BlockFlags.UPDATE_NEIGHBORS;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final ServerWorld world;
+    private final Set<Update> updates;
+    private final BlockPos.Mutable cursor;
+    private final LongHashSet changed;
+    private long[] pending;
+    private int pendingCount;
+    private long section;
+
+    /**
+     * @param world   The world to modify
+     * @param updates The updates to run for every flushed batch
+     */
+    public BlockBatch(ServerWorld world, Set<Update> updates) {
+        this.world = world;
+        this.updates = updates.isEmpty() ? EnumSet.noneOf(Update.class) : EnumSet.copyOf(updates);
+        this.cursor = new BlockPos.Mutable();
+        this.changed = new LongHashSet(256);
+        this.pending = new long[256];
+    }
+
+    /**
+     * Sets the given state, flushing the current batch first if the position is in a different section.
+     *
+     * @return Whether the state was changed
+     */
+    public boolean setBlockState(long pos, BlockState state) {
+        long posSection = sectionOf(pos);
+        if (pendingCount > 0 && posSection != section)
+            flush();
+        section = posSection;
+        if (! world.setBlockState(BlockPos.fromLong(pos), state, FLAGS_DEFERRED))
+            return false;
+        if (changed.add(pos)) {
+            if (pendingCount == pending.length)
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = pos;
+        }
+        return true;
+    }
+
+    /**
+     * Runs the deferred updates for all positions changed since the last flush.
+     */
+    public void flush() {
+        if (pendingCount == 0)
+            return;
+        boolean shapes = updates.contains(Update.SHAPES);
+        boolean neighbors = updates.contains(Update.NEIGHBORS);
+        for (int i = 0; i < pendingCount; i++) {
+            long pos = pending[i];
+            cursor.setPos(BlockPos.unpackX(pos), BlockPos.unpackY(pos), BlockPos.unpackZ(pos));
+            BlockState state = world.getBlockState(cursor);
+            if (shapes) {
+                BlockState valid = Block.getValidBlockForPosition(state, world, cursor);
+                if (valid != state && world.setBlockState(cursor.toImmutable(), valid, FLAGS_DEFERRED))
+                    state = valid;
+            }
+            if (! isBorder(pos))
+                continue;
+            BlockPos immutable = cursor.toImmutable();
+            if (shapes)
+                state.updateNeighbors(world, immutable, BlockFlags.BLOCK_UPDATE);
+            if (neighbors)
+                world.notifyNeighborsOfStateChange(immutable, state.getBlock());
+        }
+        changed.clear();
+        pendingCount = 0;
+    }
+
+    private boolean isBorder(long pos) {
+        for (Direction direction : DIRECTIONS) {
+            if (! changed.contains(BlockPos.offset(pos, direction)))
+                return true;
+        }
+        return false;
+    }
+
+    private static long sectionOf(long pos) {
+        return SectionPos.asLong(BlockPos.unpackX(pos) >> 4, BlockPos.unpackY(pos) >> 4, BlockPos.unpackZ(pos) >> 4);
+    }
+
+    /**
+     * The updates which are deferred to the end of a batch. Anything not requested is skipped entirely.
+     */
+    public enum Update {
+        /**
+         * Lets every changed block and the blocks bordering the batch adapt their shape, like fences connecting to each other.
+         */
+        SHAPES,
+        /**
+         * Notifies the blocks bordering the batch, so that for example redstone or falling blocks react.
+         */
+        NEIGHBORS
+    }
+}
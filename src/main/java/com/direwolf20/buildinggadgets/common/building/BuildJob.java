@@ -0,0 +1,137 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.util.BlockSnapshot;
+import net.minecraftforge.event.ForgeEventFactory;
+import net.minecraftforge.event.world.BlockEvent;
+
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A unit of world modification work, which is executed by the {@link BuildScheduler} in small steps spread over as many ticks as
+ * necessary. Jobs are only ever touched from the server thread.
+ * <p>
+ * Every job is {@link #close(boolean) closed} exactly once - either after it's last step or when it is cancelled - which is where
+ * any resources held for it (like energy reservations) have to be settled. Work which is deferred between steps (like a
+ * {@link BlockBatch}) has to be completed in {@link #onPause()} and {@link #onClose(boolean)}, as a job may not continue before the
+ * next tick.
+ */
+public abstract class BuildJob {
+    private final ServerWorld world;
+    private final UUID owner;
+    private final int totalSteps;
+    private int completedSteps;
+    //whether the job ran since it was last paused
+    private boolean active;
+    private boolean closed;
+
+    /**
+     * @param world      The world to operate on
+     * @param owner      The id of the player on who's behalf this job runs
+     * @param totalSteps The (estimated) number of steps this job consists of, used for reporting progress
+     */
+    protected BuildJob(ServerWorld world, UUID owner, int totalSteps) {
+        this.world = world;
+        this.owner = owner;
+        this.totalSteps = totalSteps;
+    }
+
+    /**
+     * Performs a single step of this job, for example placing one block.
+     *
+     * @return false if there is no more work to be done, true otherwise
+     */
+    protected abstract boolean step();
+
+    /**
+     * Called once when the job stops running.
+     *
+     * @param cancelled whether the job stopped because it was cancelled, instead of running out of steps
+     */
+    protected abstract void onClose(boolean cancelled);
+
+    /**
+     * Called when the job won't run any further steps during the current tick, unless it was closed instead.
+     */
+    protected void onPause() {}
+
+    final boolean run() {
+        active = true;
+        if (! step())
+            return false;
+        completedSteps++;
+        return true;
+    }
+
+    final void pause() {
+        if (active && ! closed) {
+            active = false;
+            onPause();
+        }
+    }
+
+    final void close(boolean cancelled) {
+        if (closed)
+            return;
+        closed = true;
+        onClose(cancelled);
+    }
+
+    /**
+     * @return The owner's player entity, or null if they are offline
+     */
+    @Nullable
+    protected ServerPlayerEntity getOwnerEntity() {
+        return world.getServer().getPlayerList().getPlayerByUUID(owner);
+    }
+
+    /**
+     * Checks whether the given player may break the given block, like breaking it by hand: the block must not be unbreakable, the
+     * player must be allowed to modify its position - spawn protection and the world border apply - and no handler may cancel the
+     * {@link BlockEvent.BreakEvent} posted for it.
+     */
+    protected boolean canBreak(ServerPlayerEntity player, BlockPos pos, BlockState state) {
+        return state.getBlockHardness(world, pos) >= 0 && world.isBlockModifiable(player, pos)
+                && ! MinecraftForge.EVENT_BUS.post(new BlockEvent.BreakEvent(world, pos.toImmutable(), state, player));
+    }
+
+    /**
+     * Checks whether the given player may place a block at the given position, like placing it by hand: the player must be allowed
+     * to modify the position - spawn protection and the world border apply - and no handler may cancel the
+     * {@link BlockEvent.EntityPlaceEvent} posted for it. The event is posted
+     * before anything is placed, so it reports the state currently at the position.
+     */
+    protected boolean canPlace(ServerPlayerEntity player, BlockPos pos) {
+        return world.isBlockModifiable(player, pos)
+                && ! ForgeEventFactory.onBlockPlace(player, BlockSnapshot.getBlockSnapshot(world, pos.toImmutable()), Direction.UP);
+    }
+
+    public ServerWorld getWorld() {
+        return world;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public int getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public int getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * @return The progress of this job in the range [0, 1]
+     */
+    public float getProgress() {
+        return totalSteps > 0 ? Math.min((float) completedSteps / totalSteps, 1f) : 1f;
+    }
+}
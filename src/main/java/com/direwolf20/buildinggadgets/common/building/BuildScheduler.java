@@ -0,0 +1,243 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.buildinggadgets.common.config.Config;
+import com.google.common.base.Preconditions;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.TickEvent.Phase;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * Runs {@link BuildJob BuildJobs} on the server thread under a per tick time budget ({@link Config.Building#tickBudgetNanos}), so
+ * that large operations are spread over multiple ticks instead of stalling a single one.
+ * <p>
+ * Jobs are queued per player and each player's queue is bounded by {@link Config.Building#maxQueuedJobs}, which includes jobs still
+ * being prepared in a reserved {@link Slot}. Only the first job of each queue runs, players are served round robin in slices of
+ * {@value #STEPS_PER_SLICE} steps and the player served first rotates every tick. Work that doesn't fit into a tick's budget is carried
+ * over to the next one. While jobs are pending, their owner is shown the progress on the action bar. A player's jobs are cancelled
+ * when they log out.
+ */
+@EventBusSubscriber(modid = BuildingGadgets.MOD_ID)
+public enum BuildScheduler {
+    ;
+    //steps between two checks of the clock - reading it is cheap, but not free compared to a step
+    private static final int STEPS_PER_SLICE = 16;
+    private static final String KEY_PROGRESS = "message." + BuildingGadgets.MOD_ID + ".build.progress";
+    private static final String KEY_FINISHED = "message." + BuildingGadgets.MOD_ID + ".build.finished";
+    //insertion ordered, so that rotating the first entry to the end rotates the served order
+    private static final Map<UUID, ArrayDeque<BuildJob>> QUEUES = new LinkedHashMap<>();
+    //number of open slots per player
+    private static final Map<UUID, Integer> RESERVED_SLOTS = new HashMap<>();
+    //the open slots themselves, so that they can be closed when the server stops
+    private static final Set<Slot> OPEN_SLOTS = new HashSet<>();
+
+    /**
+     * Queues the given job for it's owner.
+     *
+     * @param job The job to queue
+     * @return false if the owner's queue is full, in which case the job is not queued and the caller remains responsible for it
+     */
+    public static boolean submit(BuildJob job) {
+        if (! canSubmit(job.getOwner()))
+            return false;
+        QUEUES.computeIfAbsent(job.getOwner(), id -> new ArrayDeque<>()).add(job);
+        return true;
+    }
+
+    /**
+     * Reserves room for a job which isn't ready yet in the given player's queue.
+     *
+     * @param owner The player to reserve room for
+     * @return The reserved slot or {@link Optional#empty()} if the player's queue is full
+     */
+    public static Optional<Slot> reserveSlot(UUID owner) {
+        if (! canSubmit(owner))
+            return Optional.empty();
+        RESERVED_SLOTS.merge(owner, 1, Integer::sum);
+        Slot slot = new Slot(owner);
+        OPEN_SLOTS.add(slot);
+        return Optional.of(slot);
+    }
+
+    /**
+     * @return Whether the given player's queue has room for another job
+     */
+    public static boolean canSubmit(UUID owner) {
+        return getQueuedJobs(owner) + RESERVED_SLOTS.getOrDefault(owner, 0) < Config.BUILDING.maxQueuedJobs.get();
+    }
+
+    /**
+     * Cancels all jobs queued by the given player. Work which already happened is not undone.
+     *
+     * @param owner The id of the player who's jobs to cancel
+     * @return The number of cancelled jobs
+     */
+    public static int cancel(UUID owner) {
+        ArrayDeque<BuildJob> queue = QUEUES.remove(owner);
+        if (queue == null)
+            return 0;
+        queue.forEach(job -> job.close(true));
+        return queue.size();
+    }
+
+    /**
+     * @return The number of jobs queued by the given player, including the one currently running
+     */
+    public static int getQueuedJobs(UUID owner) {
+        ArrayDeque<BuildJob> queue = QUEUES.get(owner);
+        return queue != null ? queue.size() : 0;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != Phase.END || QUEUES.isEmpty())
+            return;
+        long deadline = System.nanoTime() + Config.BUILDING.tickBudgetNanos.get();
+        rotate();
+        List<BuildJob> finished = new ArrayList<>();
+        while (! QUEUES.isEmpty() && System.nanoTime() < deadline) {
+            Iterator<Entry<UUID, ArrayDeque<BuildJob>>> it = QUEUES.entrySet().iterator();
+            while (it.hasNext()) {
+                ArrayDeque<BuildJob> queue = it.next().getValue();
+                BuildJob job = queue.element();
+                if (! runSlice(job)) {
+                    queue.remove();
+                    job.close(false);
+                    finished.add(job);
+                    if (queue.isEmpty())
+                        it.remove();
+                }
+                if (System.nanoTime() >= deadline)
+                    break;
+            }
+        }
+        for (ArrayDeque<BuildJob> queue : QUEUES.values())
+            queue.element().pause();
+        reportProgress(finished);
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        cancel(event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(FMLServerStoppingEvent event) {
+        for (UUID owner : new ArrayList<>(QUEUES.keySet()))
+            cancel(owner);
+        //the tasks holding these won't run anymore, and the counts would otherwise carry over into the next world
+        for (Slot slot : OPEN_SLOTS) {
+            slot.closed = true;
+            slot.stopped = true;
+        }
+        OPEN_SLOTS.clear();
+        RESERVED_SLOTS.clear();
+    }
+
+    //returns false once the job is done
+    private static boolean runSlice(BuildJob job) {
+        for (int i = 0; i < STEPS_PER_SLICE; i++) {
+            if (! job.run())
+                return false;
+        }
+        return true;
+    }
+
+    private static void rotate() {
+        if (QUEUES.size() < 2)
+            return;
+        Iterator<Entry<UUID, ArrayDeque<BuildJob>>> it = QUEUES.entrySet().iterator();
+        Entry<UUID, ArrayDeque<BuildJob>> first = it.next();
+        it.remove();
+        QUEUES.put(first.getKey(), first.getValue());
+    }
+
+    private static void reportProgress(List<BuildJob> finished) {
+        for (BuildJob job : finished) {
+            ServerPlayerEntity player = getPlayer(job.getWorld().getServer(), job.getOwner());
+            if (player != null && ! QUEUES.containsKey(job.getOwner()))
+                player.sendStatusMessage(new TranslationTextComponent(KEY_FINISHED), true);
+        }
+        if (QUEUES.isEmpty())
+            return;
+        MinecraftServer server = QUEUES.values().iterator().next().element().getWorld().getServer();
+        if (server.getTickCounter() % Config.BUILDING.progressInterval.get() != 0)
+            return;
+        for (Entry<UUID, ArrayDeque<BuildJob>> entry : QUEUES.entrySet()) {
+            ServerPlayerEntity player = getPlayer(server, entry.getKey());
+            BuildJob job = entry.getValue().element();
+            if (player != null)
+                player.sendStatusMessage(new TranslationTextComponent(KEY_PROGRESS, Math.round(job.getProgress() * 100),
+                        entry.getValue().size()), true);
+        }
+    }
+
+    @Nullable
+    private static ServerPlayerEntity getPlayer(MinecraftServer server, UUID id) {
+        return server.getPlayerList().getPlayerByUUID(id);
+    }
+
+    /**
+     * Room in a player's queue, held while the job to fill it is still being prepared - for example while its placements are planned
+     * off thread. Open slots count towards the queue's bound, so that spamming a gadget can't start more work than the queue would
+     * take. Every slot must eventually either be used to {@link #submit(BuildJob) submit} a job or be {@link #release() released}.
+     * Slots still open when the server stops are closed, jobs submitted into them afterwards are dropped. Slots may only be used on
+     * the server thread.
+     */
+    public static final class Slot {
+        private final UUID owner;
+        private boolean closed;
+        //whether the slot was closed because the server stopped
+        private boolean stopped;
+
+        private Slot(UUID owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Queues the given job in place of this slot. Unlike {@link BuildScheduler#submit(BuildJob)} this doesn't depend on the
+         * queue's bound, but the job is dropped if its owner is offline or the slot was closed because the server stopped. Dropped
+         * jobs are closed as cancelled, so that they settle their resources.
+         *
+         * @param job The job to queue, which must be owned by the slot's owner
+         * @return Whether the job was queued
+         * @throws IllegalStateException if the slot was already used or released
+         */
+        public boolean submit(BuildJob job) {
+            Preconditions.checkArgument(job.getOwner().equals(owner), "Cannot submit a job of %s into a slot of %s", job.getOwner(), owner);
+            Preconditions.checkState(! closed || stopped, "Cannot submit into a closed slot!");
+            if (! stopped)
+                close();
+            if (stopped || getPlayer(job.getWorld().getServer(), owner) == null) {
+                job.close(true);
+                return false;
+            }
+            QUEUES.computeIfAbsent(owner, id -> new ArrayDeque<>()).add(job);
+            return true;
+        }
+
+        /**
+         * Gives the slot back without queueing anything. Does nothing if the slot was already closed.
+         */
+        public void release() {
+            if (! closed)
+                close();
+        }
+
+        private void close() {
+            closed = true;
+            OPEN_SLOTS.remove(this);
+            RESERVED_SLOTS.computeIfPresent(owner, (id, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.village.PointOfInterestType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.lighting.WorldLightManager;
+import net.minecraft.world.server.ServerChunkProvider;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.common.util.Constants.BlockFlags;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Removes all blocks within a box, chunk section by chunk section from the top down. Sections which the box covers completely are
+ * cleared in bulk within a single step: the section is swapped for an empty one, after which heightmaps, lighting and client sync
+ * are updated once for the section and neighbors are only notified where the section borders blocks outside the box. Blocks with a
+ * block entity or a point of interest are removed individually beforehand, as their removal has effects beyond the chunk.
+ * <p>
+ * Sections which are only partially covered or contain unbreakable blocks, or which the reservation can't pay for as a whole, fall
+ * back to removing block by block through a {@link BlockBatch}. Unbreakable blocks and unloaded chunks are always skipped.
+ * <p>
+ * Like breaking by hand, every block is only removed if the owner {@link #canBreak(ServerPlayerEntity, BlockPos, BlockState) may
+ * break it}. Covered sections are checked block by block before being cleared, and are only cleared in bulk if every block in them
+ * may be broken. Otherwise the results are remembered, so that the block by block fallback doesn't post the same events a second
+ * time. Only positions which held air during the check are checked again, in case a block was placed there since.
+ * <p>
+ * Every removed block costs one action from the given reservation, which is committed when the job is closed. Removed blocks are
+ * reported to an optional {@link RemovalListener} - for bulk cleared sections in one pass over the section, right before clearing it.
+ */
+public final class DestructionJob extends BuildJob {
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+    //the heightmaps a loaded chunk keeps up to date
+    private static final Set<Heightmap.Type> LIVE_HEIGHTMAPS = EnumSet.of(Heightmap.Type.WORLD_SURFACE, Heightmap.Type.OCEAN_FLOOR,
+            Heightmap.Type.MOTION_BLOCKING, Heightmap.Type.MOTION_BLOCKING_NO_LEAVES);
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    //packed section positions, top down
+    private final long[] sections;
+    private int nextSection;
+    //the part of the section which is currently removed block by block, iterated top down
+    private boolean partial;
+    private int fromX;
+    private int fromY;
+    private int fromZ;
+    private int toX;
+    private int toZ;
+    private int x;
+    private int y;
+    private int z;
+    private boolean exhausted;
+    private final BlockPos.Mutable cursor;
+    private final BlockBatch batch;
+    @Nullable
+    private final TraitEnergyStorage.Reservation reservation;
+    @Nullable
+    private final RemovalListener listener;
+    //scratch space for bulk clearing, reused for every section
+    private final long[] bulk;
+    private final long[] individual;
+    //one bit per position of the current section each, set if the owner may or may not break the block there
+    private final long[] allowed;
+    private final long[] denied;
+    //whether the current section's positions were already checked, in which case allowed and denied hold the results
+    private boolean checked;
+
+    /**
+     * @param min         The minimum corner of the box to clear
+     * @param max         The maximum corner of the box to clear
+     * @param reservation The reservation paying for each removed block, or null if removing is free
+     * @param listener    The listener to report removed blocks to, if any
+     */
+    public DestructionJob(ServerWorld world, UUID owner, BlockPos min, BlockPos max, @Nullable TraitEnergyStorage.Reservation reservation,
+                          @Nullable RemovalListener listener) {
+        super(world, owner, countSteps(min, max));
+        this.minX = min.getX();
+        this.minY = Math.max(min.getY(), 0);
+        this.minZ = min.getZ();
+        this.maxX = max.getX();
+        this.maxY = Math.min(max.getY(), 255);
+        this.maxZ = max.getZ();
+        this.sections = listSections(minX, minY, minZ, maxX, maxY, maxZ);
+        this.cursor = new BlockPos.Mutable();
+        this.batch = new BlockBatch(world, EnumSet.allOf(BlockBatch.Update.class));
+        this.reservation = reservation;
+        this.listener = listener;
+        this.bulk = new long[SECTION_VOLUME];
+        this.individual = new long[SECTION_VOLUME];
+        this.allowed = new long[SECTION_VOLUME / Long.SIZE];
+        this.denied = new long[SECTION_VOLUME / Long.SIZE];
+    }
+
+    private static long[] listSections(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int width = (maxX >> 4) - (minX >> 4) + 1;
+        int height = (maxY >> 4) - (minY >> 4) + 1;
+        int depth = (maxZ >> 4) - (minZ >> 4) + 1;
+        long[] sections = new long[Math.max(width, 0) * Math.max(height, 0) * Math.max(depth, 0)];
+        int count = 0;
+        for (int sy = maxY >> 4; sy >= minY >> 4; sy--) {
+            for (int sz = minZ >> 4; sz <= maxZ >> 4; sz++) {
+                for (int sx = minX >> 4; sx <= maxX >> 4; sx++)
+                    sections[count++] = SectionPos.asLong(sx, sy, sz);
+            }
+        }
+        return Arrays.copyOf(sections, count);
+    }
+
+    //one step per covered section, one per position of every other section
+    private static int countSteps(BlockPos min, BlockPos max) {
+        long steps = 0;
+        int minY = Math.max(min.getY(), 0);
+        int maxY = Math.min(max.getY(), 255);
+        for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+            int height = Math.min(maxY, (sy << 4) + 15) - Math.max(minY, sy << 4) + 1;
+            for (int sz = min.getZ() >> 4; sz <= max.getZ() >> 4; sz++) {
+                int depth = Math.min(max.getZ(), (sz << 4) + 15) - Math.max(min.getZ(), sz << 4) + 1;
+                for (int sx = min.getX() >> 4; sx <= max.getX() >> 4; sx++) {
+                    int width = Math.min(max.getX(), (sx << 4) + 15) - Math.max(min.getX(), sx << 4) + 1;
+                    int volume = width * height * depth;
+                    steps += volume == SECTION_VOLUME ? 1 : volume;
+                }
+            }
+        }
+        return (int) Math.min(steps, Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected boolean step() {
+        if (exhausted)
+            return false;
+        //jobs are cancelled when their owner logs out, so this should never stop a job
+        ServerPlayerEntity player = getOwnerEntity();
+        if (player == null)
+            return false;
+        if (partial) {
+            removeNext(player);
+            return ! exhausted;
+        }
+        if (nextSection >= sections.length)
+            return false;
+        long section = sections[nextSection++];
+        int sx = SectionPos.extractX(section);
+        int sy = SectionPos.extractY(section);
+        int sz = SectionPos.extractZ(section);
+        //never load chunks, unloaded sections are skipped
+        Chunk chunk = getWorld().getChunkProvider().getChunk(sx, sz, false);
+        if (chunk == null)
+            return true;
+        checked = false;
+        if (! covers(sx, sy, sz) || ! clearSection(chunk, player, sx, sy, sz))
+            beginPartial(sx, sy, sz);
+        return ! exhausted;
+    }
+
+    private boolean covers(int sx, int sy, int sz) {
+        return minX <= sx << 4 && maxX >= (sx << 4) + 15 && minY <= sy << 4 && maxY >= (sy << 4) + 15
+                && minZ <= sz << 4 && maxZ >= (sz << 4) + 15;
+    }
+
+    private void beginPartial(int sx, int sy, int sz) {
+        partial = true;
+        fromX = Math.max(minX, sx << 4);
+        fromY = Math.max(minY, sy << 4);
+        fromZ = Math.max(minZ, sz << 4);
+        toX = Math.min(maxX, (sx << 4) + 15);
+        toZ = Math.min(maxZ, (sz << 4) + 15);
+        x = fromX;
+        y = Math.min(maxY, (sy << 4) + 15);
+        z = fromZ;
+    }
+
+    private void removeNext(ServerPlayerEntity player) {
+        cursor.setPos(x, y, z);
+        if (getWorld().isBlockLoaded(cursor))
+            removeBlock(player, cursor);
+        if (++ x > toX) {
+            x = fromX;
+            if (++ z > toZ) {
+                z = fromZ;
+                if (-- y < fromY)
+                    partial = false;
+            }
+        }
+    }
+
+    private void removeBlock(ServerPlayerEntity player, BlockPos.Mutable pos) {
+        ServerWorld world = getWorld();
+        BlockState state = world.getBlockState(pos);
+        if (state.isAir(world, pos) || state.getBlockHardness(world, pos) < 0)
+            return;
+        if (reservation != null && ! reservation.coversAction()) {
+            exhausted = true;
+            return;
+        }
+        if (! mayBreak(player, pos, state))
+            return;
+        if (remove(pos, state) && reservation != null)
+            reservation.consumeAction();
+    }
+
+    //returns whether the world accepted the removal
+    private boolean remove(BlockPos.Mutable pos, BlockState state) {
+        //the block entity is gone once the state was set
+        TileEntity tileEntity = listener != null ? getWorld().getTileEntity(pos) : null;
+        if (! batch.setBlockState(pos.toLong(), AIR))
+            return false;
+        if (listener != null)
+            listener.onRemove(pos, state, tileEntity);
+        return true;
+    }
+
+    private boolean mayBreak(ServerPlayerEntity player, BlockPos pos, BlockState state) {
+        //positions checked along with their section keep the result, everything else is checked now
+        if (checked) {
+            int index = sectionIndex(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+            if (isSet(allowed, index))
+                return true;
+            if (isSet(denied, index))
+                return false;
+        }
+        return canBreak(player, pos, state);
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >> 6] & 1L << index) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >> 6] |= 1L << index;
+    }
+
+    private static int sectionIndex(int x, int y, int z) {
+        return y << 8 | z << 4 | x;
+    }
+
+    /**
+     * @return false if the section can't be cleared in bulk, in which case nothing was modified
+     */
+    private boolean clearSection(Chunk chunk, ServerPlayerEntity player, int sx, int sy, int sz) {
+        ChunkSection[] chunkSections = chunk.getSections();
+        ChunkSection section = chunkSections[sy];
+        if (ChunkSection.isEmpty(section))
+            return true;
+        ServerWorld world = getWorld();
+        int baseX = sx << 4;
+        int baseY = sy << 4;
+        int baseZ = sz << 4;
+        int bulkCount = 0;
+        int individualCount = 0;
+        //keep going after finding a block which prevents clearing in bulk, so that every block is checked exactly once
+        boolean clearable = true;
+        Arrays.fill(allowed, 0);
+        Arrays.fill(denied, 0);
+        for (int dy = 15; dy >= 0; dy--) {
+            for (int dz = 0; dz < 16; dz++) {
+                for (int dx = 0; dx < 16; dx++) {
+                    BlockState state = section.getBlockState(dx, dy, dz);
+                    cursor.setPos(baseX + dx, baseY + dy, baseZ + dz);
+                    if (state.isAir(world, cursor))
+                        continue;
+                    if (state.getBlockHardness(world, cursor) < 0) {
+                        clearable = false;
+                        continue;
+                    }
+                    if (! canBreak(player, cursor, state)) {
+                        set(denied, sectionIndex(dx, dy, dz));
+                        clearable = false;
+                        continue;
+                    }
+                    set(allowed, sectionIndex(dx, dy, dz));
+                    if (state.hasTileEntity() || PointOfInterestType.forState(state).isPresent())
+                        individual[individualCount++] = cursor.toLong();
+                    else
+                        bulk[bulkCount++] = cursor.toLong();
+                }
+            }
+        }
+        checked = true;
+        //pay for the whole section or let the block by block path spend what's left
+        if (! clearable || reservation != null && ! reservation.consumeActions(bulkCount + individualCount))
+            return false;
+
+        //already paid for as part of the section
+        for (int i = 0; i < individualCount; i++)
+            remove(cursor.setPos(individual[i]), world.getBlockState(cursor));
+        batch.flush();
+        if (listener != null) {
+            for (int i = 0; i < bulkCount; i++) {
+                cursor.setPos(bulk[i]);
+                listener.onRemove(cursor, section.getBlockState(cursor.getX() & 15, cursor.getY() & 15, cursor.getZ() & 15), null);
+            }
+        }
+
+        //a new empty section instead of Chunk.EMPTY_SECTION, as partial chunk updates don't send missing sections
+        chunkSections[sy] = new ChunkSection(baseY);
+        chunk.markDirty();
+        Heightmap.updateChunkHeightmaps(chunk, LIVE_HEIGHTMAPS);
+        ServerChunkProvider provider = world.getChunkProvider();
+        WorldLightManager lightManager = provider.getLightManager();
+        lightManager.updateSectionStatus(SectionPos.of(sx, sy, sz), true);
+        for (int i = 0; i < bulkCount; i++) {
+            cursor.setPos(bulk[i]);
+            lightManager.checkBlock(cursor);
+            //the chunk holder switches to resending the whole section after a few changes
+            provider.markBlockChanged(cursor);
+        }
+        updateBorder(baseX, baseY, baseZ);
+        return true;
+    }
+
+    //notifies the blocks outside the box which touch the cleared section
+    private void updateBorder(int baseX, int baseY, int baseZ) {
+        ServerWorld world = getWorld();
+        for (Direction direction : DIRECTIONS) {
+            //the outermost layer of the section in this direction
+            int layerX = direction.getXOffset() > 0 ? baseX + 15 : baseX;
+            int layerY = direction.getYOffset() > 0 ? baseY + 15 : baseY;
+            int layerZ = direction.getZOffset() > 0 ? baseZ + 15 : baseZ;
+            if (isInBox(layerX + direction.getXOffset(), layerY + direction.getYOffset(), layerZ + direction.getZOffset()))
+                continue;
+            for (int a = 0; a < 16; a++) {
+                for (int b = 0; b < 16; b++) {
+                    switch (direction.getAxis()) {
+                        case X:
+                            cursor.setPos(layerX, baseY + a, baseZ + b);
+                            break;
+                        case Y:
+                            cursor.setPos(baseX + a, layerY, baseZ + b);
+                            break;
+                        default:
+                            cursor.setPos(baseX + a, baseY + b, layerZ);
+                    }
+                    BlockPos pos = cursor.toImmutable();
+                    AIR.updateNeighbors(world, pos, BlockFlags.BLOCK_UPDATE);
+                    world.notifyNeighborsOfStateChange(pos, Blocks.AIR);
+                }
+            }
+        }
+    }
+
+    private boolean isInBox(int x, int y, int z) {
+        return x >= minX && y >= minY && z >= minZ && x <= maxX && y <= maxY && z <= maxZ;
+    }
+
+    @Override
+    protected void onPause() {
+        batch.flush();
+        if (listener != null)
+            listener.onBatchEnd();
+    }
+
+    @Override
+    protected void onClose(boolean cancelled) {
+        batch.flush();
+        if (listener != null)
+            listener.onBatchEnd();
+        if (reservation != null)
+            reservation.commit();
+    }
+}
@@ -0,0 +1,128 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.enchantment.Enchantments;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Collects the drops of the blocks removed by a job, instead of spawning an item entity per block. Drops are merged by item and tag
+ * and handed out once per batch: as full stacks into the owner's inventory if they are online in the same world, with anything
+ * which doesn't fit spawned as one entity per full stack at the operation's origin.
+ * <p>
+ * Drops are computed from the block's loot table as if mined with an empty hand, or with a silk touch tool if requested.
+ */
+public final class DropAggregator implements RemovalListener {
+    private final ServerWorld world;
+    private final UUID owner;
+    private final BlockPos origin;
+    private final ItemStack tool;
+    //items are singletons, each of them maps to one entry per distinct tag
+    private final Map<Item, List<Drop>> drops;
+
+    /**
+     * @param owner     The player to give the drops to
+     * @param origin    The position to spawn drops at, which don't fit into the owner's inventory
+     * @param silkTouch Whether blocks should drop as if mined with silk touch, usually {@link com.direwolf20.core.traits.Trait#SILK_TOUCH}
+     */
+    public DropAggregator(ServerWorld world, UUID owner, BlockPos origin, boolean silkTouch) {
+        this.world = world;
+        this.owner = owner;
+        this.origin = origin.toImmutable();
+        this.drops = new IdentityHashMap<>();
+        if (silkTouch) {
+            this.tool = new ItemStack(Items.DIAMOND_PICKAXE);
+            tool.addEnchantment(Enchantments.SILK_TOUCH, 1);
+        } else
+            this.tool = ItemStack.EMPTY;
+    }
+
+    @Override
+    public void onRemove(BlockPos pos, BlockState state, @Nullable TileEntity tileEntity) {
+        for (ItemStack stack : Block.getDrops(state, world, pos.toImmutable(), tileEntity, null, tool))
+            add(stack);
+    }
+
+    private void add(ItemStack stack) {
+        if (stack.isEmpty())
+            return;
+        List<Drop> entries = drops.computeIfAbsent(stack.getItem(), item -> new ArrayList<>(1));
+        CompoundNBT tag = stack.getTag();
+        for (Drop drop : entries) {
+            if (Objects.equals(drop.tag, tag)) {
+                drop.count += stack.getCount();
+                return;
+            }
+        }
+        entries.add(new Drop(tag != null ? tag.copy() : null, stack.getCount()));
+    }
+
+    @Override
+    public void onBatchEnd() {
+        flush();
+    }
+
+    /**
+     * Hands out all drops collected so far.
+     */
+    public void flush() {
+        if (drops.isEmpty())
+            return;
+        ServerPlayerEntity player = world.getServer().getPlayerList().getPlayerByUUID(owner);
+        if (player != null && player.world != world)
+            player = null;
+        for (Map.Entry<Item, List<Drop>> entry : drops.entrySet()) {
+            for (Drop drop : entry.getValue())
+                give(player, entry.getKey(), drop);
+        }
+        drops.clear();
+    }
+
+    private void give(@Nullable ServerPlayerEntity player, Item item, Drop drop) {
+        int count = drop.count;
+        while (count > 0) {
+            ItemStack stack = new ItemStack(item);
+            if (drop.tag != null)
+                stack.setTag(drop.tag.copy());
+            stack.setCount(Math.min(count, stack.getMaxStackSize()));
+            count -= stack.getCount();
+            if (player != null)
+                player.inventory.addItemStackToInventory(stack);
+            if (! stack.isEmpty())
+                spawn(stack);
+        }
+    }
+
+    private void spawn(ItemStack stack) {
+        ItemEntity entity = new ItemEntity(world, origin.getX() + 0.5, origin.getY() + 0.5, origin.getZ() + 0.5, stack);
+        entity.setDefaultPickupDelay();
+        world.addEntity(entity);
+    }
+
+    private static final class Drop {
+        @Nullable
+        private final CompoundNBT tag;
+        private int count;
+
+        private Drop(@Nullable CompoundNBT tag, int count) {
+            this.tag = tag;
+            this.count = count;
+        }
+    }
+}
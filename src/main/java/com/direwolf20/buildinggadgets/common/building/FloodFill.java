@@ -0,0 +1,164 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.core.collect.ChunkedLongSet;
+import com.direwolf20.core.collect.LongQueue;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds the area connected to a start position, in which every block matches a predicate on it's
+ * {@link net.minecraft.block.Block#getStateId(BlockState) state id}. The fill reads from a {@link WorldSnapshot}, so it never loads
+ * chunks and may run on any thread - positions which weren't captured simply don't match.
+ * <p>
+ * The fill is a breadth first search over packed positions, using a {@link LongQueue} as work list and {@link ChunkedLongSet
+ * ChunkedLongSets} to track visited and filled positions. It is bounded by a box, a maximum distance from the player's eye and a
+ * maximum amount of blocks. Neighbors are always visited in the order of {@link Direction#values()}, so the same snapshot always
+ * results in the same area - even if the fill stops early, because it hit the block limit. In that case the matching positions which
+ * were reached but not filled anymore are reported as the {@link Result#getFrontier() frontier}.
+ */
+public final class FloodFill {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final WorldSnapshot snapshot;
+    private final IntPredicate matcher;
+    private final BlockPos min;
+    private final BlockPos max;
+    private final double eyeX;
+    private final double eyeY;
+    private final double eyeZ;
+    private final double maxRangeSq;
+    private final int maxBlocks;
+
+    /**
+     * @param snapshot  A snapshot covering at least the given box
+     * @param matcher   The predicate each filled state id has to match
+     * @param min       The minimum corner of the box to fill in
+     * @param max       The maximum corner of the box to fill in
+     * @param eye       The position from which reach is measured
+     * @param maxRange  The maximum distance between eye and the center of a filled block
+     * @param maxBlocks The maximum amount of blocks to fill
+     */
+    public FloodFill(WorldSnapshot snapshot, IntPredicate matcher, BlockPos min, BlockPos max, Vec3d eye, double maxRange, int maxBlocks) {
+        this.snapshot = snapshot;
+        this.matcher = matcher;
+        this.min = min;
+        this.max = max;
+        this.eyeX = eye.x;
+        this.eyeY = eye.y;
+        this.eyeZ = eye.z;
+        this.maxRangeSq = maxRange * maxRange;
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * @param start The position to start at. If it doesn't match itself, the result is empty.
+     * @return The area connected to start
+     */
+    public Result fill(BlockPos start) {
+        ChunkedLongSet visited = new ChunkedLongSet();
+        ChunkedLongSet filled = new ChunkedLongSet();
+        LongQueue queue = new LongQueue(256);
+        long startPos = start.toLong();
+        visited.add(startPos);
+        if (matches(start.getX(), start.getY(), start.getZ()))
+            queue.enqueue(startPos);
+
+        while (! queue.isEmpty() && filled.size() < maxBlocks) {
+            long pos = queue.dequeue();
+            filled.add(pos);
+            int x = BlockPos.unpackX(pos);
+            int y = BlockPos.unpackY(pos);
+            int z = BlockPos.unpackZ(pos);
+            for (Direction direction : DIRECTIONS) {
+                int nx = x + direction.getXOffset();
+                int ny = y + direction.getYOffset();
+                int nz = z + direction.getZOffset();
+                long neighbor = BlockPos.pack(nx, ny, nz);
+                //mark on enqueue, so that no position is queued twice
+                if (visited.add(neighbor) && matches(nx, ny, nz))
+                    queue.enqueue(neighbor);
+            }
+        }
+        return new Result(filled, queue.toArray());
+    }
+
+    private boolean matches(int x, int y, int z) {
+        if (x < min.getX() || y < min.getY() || z < min.getZ() || x > max.getX() || y > max.getY() || z > max.getZ())
+            return false;
+        double dx = x + 0.5 - eyeX;
+        double dy = y + 0.5 - eyeY;
+        double dz = z + 0.5 - eyeZ;
+        if (dx * dx + dy * dy + dz * dz > maxRangeSq)
+            return false;
+        int stateId = snapshot.getStateId(x, y, z);
+        return stateId != WorldSnapshot.UNKNOWN && matcher.test(stateId);
+    }
+
+    /**
+     * The area found by a {@link FloodFill}.
+     */
+    public static final class Result {
+        private final ChunkedLongSet filled;
+        private final long[] frontier;
+
+        private Result(ChunkedLongSet filled, long[] frontier) {
+            this.filled = filled;
+            this.frontier = frontier;
+        }
+
+        public int size() {
+            return filled.size();
+        }
+
+        public boolean isEmpty() {
+            return filled.isEmpty();
+        }
+
+        /**
+         * @return Whether the fill stopped at the block limit, rather than because the area was exhausted
+         */
+        public boolean isTruncated() {
+            return frontier.length > 0;
+        }
+
+        /**
+         * @return The packed positions which match and are connected to the filled area, but weren't filled because of the block
+         * limit - in the order they would have been filled in. Empty unless {@link #isTruncated() truncated}.
+         */
+        public long[] getFrontier() {
+            return frontier.clone();
+        }
+
+        public boolean contains(long pos) {
+            return filled.contains(pos);
+        }
+
+        /**
+         * @param state The state to place at every filled position
+         * @return A plan placing the given state in the filled area, grouped by section
+         */
+        public PlacementPlan toPlan(BlockState state) {
+            long[] positions = new long[filled.size()];
+            int[] count = new int[1];
+            filled.forEach(pos -> positions[count[0]++] = pos);
+            //the set iterates section by section, so each section is a contiguous range already
+            int[] sectionStarts = new int[positions.length + 1];
+            int sections = 0;
+            for (int i = 0; i < positions.length; i++) {
+                if (i == 0 || sectionOf(positions[i]) != sectionOf(positions[i - 1]))
+                    sectionStarts[sections++] = i;
+            }
+            sectionStarts[sections] = positions.length;
+            return new PlacementPlan(state, positions, Arrays.copyOf(sectionStarts, sections + 1));
+        }
+
+        private static long sectionOf(long pos) {
+            return SectionPos.asLong(BlockPos.unpackX(pos) >> 4, BlockPos.unpackY(pos) >> 4, BlockPos.unpackZ(pos) >> 4);
+        }
+    }
+}
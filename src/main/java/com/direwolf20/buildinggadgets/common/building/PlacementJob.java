@@ -0,0 +1,113 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.buildinggadgets.common.inventory.MaterialIndex;
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.EnumSet;
+import java.util.PrimitiveIterator;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Applies a {@link PlacementPlan} section by section through a {@link BlockBatch}, paying for each placed block from a
+ * {@link TraitEnergyStorage.Reservation} and a {@link MaterialIndex.Reservation}. As the plan may be outdated, every position is
+ * revalidated against the live world first, using a predicate on the state currently there, and only placed where the owner could
+ * place it by hand (see {@link #canPlace(ServerPlayerEntity, BlockPos)}). Blocks which aren't replaceable, as replaced by the
+ * exchanging gadget, additionally have to be {@link #canBreak(ServerPlayerEntity, BlockPos, BlockState) breakable} by the owner. A block is only paid for once the world accepted it. The reservations are committed when the job is closed, so a cancelled job still pays for the blocks it placed until
+ * then - and only for those. Jobs without reservations, as used for creative players, place for free.
+ */
+public final class PlacementJob extends BuildJob {
+    private final PrimitiveIterator.OfLong positions;
+    //reused for revalidating against the world
+    private final BlockPos.Mutable cursor;
+    private final BlockState state;
+    private final Predicate<BlockState> canReplace;
+    private final BlockBatch batch;
+    @Nullable
+    private final TraitEnergyStorage.Reservation reservation;
+    @Nullable
+    private final MaterialIndex.Reservation materials;
+    @Nullable
+    private final RemovalListener listener;
+
+    /**
+     * @param canReplace Whether the state currently at a planned position may still be replaced
+     * @param listener   The listener to report replaced blocks to, if any
+     */
+    public PlacementJob(ServerWorld world, UUID owner, PlacementPlan plan, Predicate<BlockState> canReplace,
+                        @Nullable TraitEnergyStorage.Reservation reservation, @Nullable MaterialIndex.Reservation materials,
+                        @Nullable RemovalListener listener) {
+        super(world, owner, plan.size());
+        this.positions = plan.iterator();
+        this.cursor = new BlockPos.Mutable();
+        this.state = plan.getState();
+        this.canReplace = canReplace;
+        this.batch = new BlockBatch(world, EnumSet.allOf(BlockBatch.Update.class));
+        this.reservation = reservation;
+        this.materials = materials;
+        this.listener = listener;
+    }
+
+    @Override
+    protected boolean step() {
+        if (! positions.hasNext())
+            return false;
+        //jobs are cancelled when their owner logs out, so this should never stop a job
+        ServerPlayerEntity player = getOwnerEntity();
+        if (player == null)
+            return false;
+        long pos = positions.nextLong();
+        cursor.setPos(BlockPos.unpackX(pos), BlockPos.unpackY(pos), BlockPos.unpackZ(pos));
+        ServerWorld world = getWorld();
+        //revalidate - the world may have changed since planning. Never force chunk loads, unloaded positions are simply skipped
+        if (! world.isBlockLoaded(cursor))
+            return true;
+        BlockState current = world.getBlockState(cursor);
+        //positions which already hold the state are free, as they were when planning
+        if (current == state || ! canReplace.test(current))
+            return true;
+        //both reservations are sized for the same amount of blocks, so they run out together
+        if (reservation != null && ! reservation.coversAction() || materials != null && materials.getRemaining() == 0)
+            return false;
+        //protected positions are skipped for free. Like placing by hand, replacing anything but replaceable blocks means breaking it.
+        if (! current.isAir(world, cursor) && ! current.getMaterial().isReplaceable() && ! canBreak(player, cursor, current)
+                || ! canPlace(player, cursor))
+            return true;
+        //the block entity is gone once the state was set
+        TileEntity tileEntity = listener != null ? world.getTileEntity(cursor) : null;
+        //only pay for blocks which were actually placed
+        if (! batch.setBlockState(pos, state))
+            return true;
+        if (reservation != null)
+            reservation.consumeAction();
+        if (materials != null)
+            materials.consume(1);
+        if (listener != null && ! current.isAir(world, cursor))
+            listener.onRemove(cursor, current, tileEntity);
+        return true;
+    }
+
+    @Override
+    protected void onPause() {
+        batch.flush();
+        if (listener != null)
+            listener.onBatchEnd();
+    }
+
+    @Override
+    protected void onClose(boolean cancelled) {
+        batch.flush();
+        if (listener != null)
+            listener.onBatchEnd();
+        if (reservation != null)
+            reservation.commit();
+        if (materials != null)
+            materials.commit();
+    }
+}
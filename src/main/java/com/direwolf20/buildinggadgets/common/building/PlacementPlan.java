@@ -0,0 +1,95 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * The result of planning a placement: the {@link BlockPos#toLong() packed positions} which could be replaced and were in reach when
+ * the {@link WorldSnapshot} was taken. Positions are grouped by chunk section, each section's positions are a contiguous range.
+ * <p>
+ * Plans are immutable, but may be outdated by the time they're applied - every position has to be revalidated against the live
+ * world before it is modified.
+ */
+public final class PlacementPlan {
+    private final BlockState state;
+    private final long[] positions;
+    //sectionStarts[i] is the index of the first position of the i-th section, followed by positions.length
+    private final int[] sectionStarts;
+
+    PlacementPlan(BlockState state, long[] positions, int[] sectionStarts) {
+        this.state = state;
+        this.positions = positions;
+        this.sectionStarts = sectionStarts;
+    }
+
+    public BlockState getState() {
+        return state;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public boolean isEmpty() {
+        return positions.length == 0;
+    }
+
+    public int getSectionCount() {
+        return sectionStarts.length - 1;
+    }
+
+    /**
+     * Drops the positions which wouldn't change, because they already hold this plan's state according to the given snapshot. Plans
+     * should be diffed before energy or materials are reserved for them, so that only actual changes are paid for.
+     *
+     * @param snapshot A snapshot covering at least this plan's positions
+     * @return A plan without the no-op positions, or this plan if there are none
+     */
+    public PlacementPlan diff(WorldSnapshot snapshot) {
+        int stateId = Block.getStateId(state);
+        long[] kept = new long[positions.length];
+        int[] keptStarts = new int[sectionStarts.length];
+        int count = 0;
+        int sections = 0;
+        for (int section = 0; section < getSectionCount(); section++) {
+            int start = count;
+            for (int i = sectionStarts[section]; i < sectionStarts[section + 1]; i++) {
+                long pos = positions[i];
+                if (snapshot.getStateId(BlockPos.unpackX(pos), BlockPos.unpackY(pos), BlockPos.unpackZ(pos)) != stateId)
+                    kept[count++] = pos;
+            }
+            if (count > start)
+                keptStarts[sections++] = start;
+        }
+        if (count == positions.length)
+            return this;
+        keptStarts[sections] = count;
+        return new PlacementPlan(state, Arrays.copyOf(kept, count), Arrays.copyOf(keptStarts, sections + 1));
+    }
+
+    /**
+     * @return An iterator over all positions, section by section
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < positions.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (index >= positions.length)
+                    throw new NoSuchElementException();
+                return positions[index++];
+            }
+        };
+    }
+}
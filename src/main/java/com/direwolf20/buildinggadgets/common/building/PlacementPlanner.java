@@ -0,0 +1,192 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import com.direwolf20.buildinggadgets.common.building.shape.Shape;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes {@link PlacementPlan PlacementPlans} off the server thread. Planning a {@link Shape} means finding all of it's positions
+ * which are within reach of the player, replaceable and not already holding the state to place according to a {@link WorldSnapshot}.
+ * This is pure computation, which is split by chunk section and run on a dedicated {@link ForkJoinPool}. Small shapes are planned on
+ * the calling thread, as handing them to the pool costs more than it saves.
+ * <p>
+ * The resulting plan is deterministic: sections are ordered by y, z and x and so are the positions within each section.
+ */
+public final class PlacementPlanner {
+    //below this many positions, planning directly is cheaper than forking
+    private static final int PARALLEL_THRESHOLD = 4096;
+    //at most this many sections are planned by a single task
+    private static final int SECTIONS_PER_TASK = 2;
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("BuildingGadgets Planner " + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private final Shape shape;
+    private final BlockState state;
+    private final int stateId;
+    private final WorldSnapshot snapshot;
+    private final double eyeX;
+    private final double eyeY;
+    private final double eyeZ;
+    private final double maxRangeSq;
+
+    /**
+     * @param shape    The shape to plan
+     * @param state    The state to place
+     * @param snapshot A snapshot covering at least the shape's bounds
+     * @param eye      The position from which reach is measured
+     * @param maxRange The maximum distance between eye and the center of a placed block
+     */
+    public PlacementPlanner(Shape shape, BlockState state, WorldSnapshot snapshot, Vec3d eye, double maxRange) {
+        this.shape = shape;
+        this.state = state;
+        this.stateId = Block.getStateId(state);
+        this.snapshot = snapshot;
+        this.eyeX = eye.x;
+        this.eyeY = eye.y;
+        this.eyeZ = eye.z;
+        this.maxRangeSq = maxRange * maxRange;
+    }
+
+    /**
+     * @return A future completed with the plan. It may already be completed, if the shape was small enough to be planned directly.
+     */
+    public CompletableFuture<PlacementPlan> plan() {
+        List<SectionBounds> sections = listSections();
+        if (shape.size() < PARALLEL_THRESHOLD) {
+            List<long[]> sectionPositions = new ArrayList<>(sections.size());
+            for (SectionBounds section : sections)
+                sectionPositions.add(planSection(section));
+            return CompletableFuture.completedFuture(merge(sectionPositions));
+        }
+        return CompletableFuture.supplyAsync(() -> merge(new PlanTask(sections, 0, sections.size()).invoke()), POOL);
+    }
+
+    private List<SectionBounds> listSections() {
+        BlockPos min = shape.getMin();
+        BlockPos max = shape.getMax();
+        List<SectionBounds> sections = new ArrayList<>();
+        for (int sy = min.getY() >> 4; sy <= max.getY() >> 4; sy++) {
+            for (int sz = min.getZ() >> 4; sz <= max.getZ() >> 4; sz++) {
+                for (int sx = min.getX() >> 4; sx <= max.getX() >> 4; sx++) {
+                    if (snapshot.hasSection(sx, sy, sz))
+                        sections.add(new SectionBounds(sx, sy, sz, min, max));
+                }
+            }
+        }
+        return sections;
+    }
+
+    private PlacementPlan merge(List<long[]> sectionPositions) {
+        int total = 0;
+        for (long[] positions : sectionPositions)
+            total += positions.length;
+        long[] positions = new long[total];
+        int[] sectionStarts = new int[sectionPositions.size() + 1];
+        int offset = 0;
+        for (int i = 0; i < sectionPositions.size(); i++) {
+            long[] section = sectionPositions.get(i);
+            sectionStarts[i] = offset;
+            System.arraycopy(section, 0, positions, offset, section.length);
+            offset += section.length;
+        }
+        sectionStarts[sectionPositions.size()] = offset;
+        return new PlacementPlan(state, positions, sectionStarts);
+    }
+
+    private long[] planSection(SectionBounds bounds) {
+        long[] result = new long[64];
+        int count = 0;
+        for (int y = bounds.minY; y <= bounds.maxY; y++) {
+            for (int z = bounds.minZ; z <= bounds.maxZ; z++) {
+                for (int x = bounds.minX; x <= bounds.maxX; x++) {
+                    if (! shape.contains(x, y, z) || ! isInReach(x, y, z))
+                        continue;
+                    int current = snapshot.getStateId(x, y, z);
+                    //skip no-ops up front, instead of diffing the plan afterwards
+                    if (current == stateId || ! isReplaceable(current))
+                        continue;
+                    if (count == result.length)
+                        result = Arrays.copyOf(result, count * 2);
+                    result[count++] = BlockPos.pack(x, y, z);
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean isInReach(int x, int y, int z) {
+        double dx = x + 0.5 - eyeX;
+        double dy = y + 0.5 - eyeY;
+        double dz = z + 0.5 - eyeZ;
+        return dx * dx + dy * dy + dz * dz <= maxRangeSq;
+    }
+
+    private static boolean isReplaceable(int stateId) {
+        if (stateId == WorldSnapshot.UNKNOWN)
+            return false;
+        BlockState current = Block.getStateById(stateId);
+        return current.getMaterial().isReplaceable();
+    }
+
+    private static final class SectionBounds {
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+
+        private SectionBounds(int sx, int sy, int sz, BlockPos min, BlockPos max) {
+            this.minX = Math.max(sx << 4, min.getX());
+            this.minY = Math.max(sy << 4, min.getY());
+            this.minZ = Math.max(sz << 4, min.getZ());
+            this.maxX = Math.min((sx << 4) + 15, max.getX());
+            this.maxY = Math.min((sy << 4) + 15, max.getY());
+            this.maxZ = Math.min((sz << 4) + 15, max.getZ());
+        }
+    }
+
+    //plans the sections [from, to), results are in section order
+    private final class PlanTask extends RecursiveTask<List<long[]>> {
+        private final List<SectionBounds> sections;
+        private final int from;
+        private final int to;
+
+        private PlanTask(List<SectionBounds> sections, int from, int to) {
+            this.sections = sections;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<long[]> compute() {
+            if (to - from <= SECTIONS_PER_TASK) {
+                List<long[]> result = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++)
+                    result.add(planSection(sections.get(i)));
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            PlanTask left = new PlanTask(sections, from, middle);
+            left.fork();
+            List<long[]> result = new PlanTask(sections, middle, to).compute();
+            List<long[]> leftResult = left.join();
+            leftResult.addAll(result);
+            return leftResult;
+        }
+    }
+}
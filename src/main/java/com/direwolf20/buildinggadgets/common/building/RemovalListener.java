@@ -0,0 +1,27 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the blocks removed by a {@link DestructionJob} or replaced by a {@link PlacementJob} as they are removed - for example to
+ * collect their drops. Depending on the job this may happen right before or right after the removal, but only for blocks which are
+ * actually removed. Jobs signal the end of each batch of removals, at the latest at the end of every tick they ran in.
+ */
+@FunctionalInterface
+public interface RemovalListener {
+    /**
+     * @param pos        The position of the block. It may be mutable, so copy it if it needs to be kept.
+     * @param state      The state which is removed
+     * @param tileEntity The block entity which is removed, if any
+     */
+    void onRemove(BlockPos pos, BlockState state, @Nullable TileEntity tileEntity);
+
+    /**
+     * Called after a batch of removals, including the last one.
+     */
+    default void onBatchEnd() {}
+}
@@ -0,0 +1,157 @@
+package com.direwolf20.buildinggadgets.common.building;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.block.Block;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.palette.PalettedContainer;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+
+import javax.annotation.Nullable;
+
+/**
+ * An immutable copy of the {@link Block#getStateId state ids} within a box of a world, which may be read from any thread. It is
+ * captured on the server thread, section by section. Instead of reading every block, each section's {@link PalettedContainer} is
+ * copied as a whole in its packed form - the palette as state ids plus the packed indices - and only unpacked when read. Sections
+ * without any blocks are shared instead of copied.
+ * <p>
+ * Sections are stored in an array indexed by their offset within the box, so a lookup is plain arithmetic. Chunks which weren't
+ * loaded at capture time are not loaded - their positions report {@link #UNKNOWN}, as do positions outside the world's height or
+ * outside the sections touched by the box.
+ */
+public final class WorldSnapshot {
+    public static final int UNKNOWN = - 1;
+    private static final int SECTIONS_PER_CHUNK = 16;
+    //containers with more bits per block don't have a palette, they store state ids directly
+    private static final int MAX_PALETTE_BITS = 8;
+    //air has state id 0
+    private static final Section EMPTY_SECTION = new Section(4, new int[]{0}, new long[16 * 16 * 16 * 4 / Long.SIZE]);
+    private final int minSectionX;
+    private final int minSectionY;
+    private final int minSectionZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    //null for sections which weren't captured
+    private final Section[] sections;
+
+    private WorldSnapshot(int minSectionX, int minSectionY, int minSectionZ, int sizeX, int sizeY, int sizeZ) {
+        this.minSectionX = minSectionX;
+        this.minSectionY = minSectionY;
+        this.minSectionZ = minSectionZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.sections = new Section[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * Must be called on the server thread.
+     *
+     * @param world The world to copy from
+     * @param min   The minimum corner of the box to copy
+     * @param max   The maximum corner of the box to copy
+     * @return A snapshot of the given box
+     */
+    public static WorldSnapshot capture(World world, BlockPos min, BlockPos max) {
+        WorldSnapshot snapshot = new WorldSnapshot(min.getX() >> 4, min.getY() >> 4, min.getZ() >> 4,
+                (max.getX() >> 4) - (min.getX() >> 4) + 1, (max.getY() >> 4) - (min.getY() >> 4) + 1, (max.getZ() >> 4) - (min.getZ() >> 4) + 1);
+        int minSectionY = Math.max(min.getY() >> 4, 0);
+        int maxSectionY = Math.min(max.getY() >> 4, SECTIONS_PER_CHUNK - 1);
+        //reused for every section, the copies are taken from it
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                Chunk chunk = world.getChunkProvider().getChunk(cx, cz, false);
+                if (chunk == null)
+                    continue;
+                ChunkSection[] chunkSections = chunk.getSections();
+                for (int sy = minSectionY; sy <= maxSectionY; sy++) {
+                    ChunkSection section = chunkSections[sy];
+                    snapshot.sections[snapshot.index(cx, sy, cz)] = ChunkSection.isEmpty(section) ? EMPTY_SECTION : copy(section, buffer);
+                }
+            }
+        }
+        buffer.release();
+        return snapshot;
+    }
+
+    //goes through the network format, which writes the palette as state ids and copies the packed indices as is
+    private static Section copy(ChunkSection section, PacketBuffer buffer) {
+        buffer.clear();
+        section.getData().write(buffer);
+        int bits = buffer.readUnsignedByte();
+        int[] palette = null;
+        if (bits <= MAX_PALETTE_BITS) {
+            palette = new int[buffer.readVarInt()];
+            for (int i = 0; i < palette.length; i++)
+                palette[i] = buffer.readVarInt();
+        }
+        long[] data = new long[buffer.readVarInt()];
+        for (int i = 0; i < data.length; i++)
+            data[i] = buffer.readLong();
+        return new Section(bits, palette, data);
+    }
+
+    //returns -1 for sections outside the captured range
+    private int index(int sx, int sy, int sz) {
+        int x = sx - minSectionX;
+        int y = sy - minSectionY;
+        int z = sz - minSectionZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ)
+            return - 1;
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    @Nullable
+    private Section getSection(int sx, int sy, int sz) {
+        int index = index(sx, sy, sz);
+        return index >= 0 ? sections[index] : null;
+    }
+
+    /**
+     * @return The state id at the given position or {@link #UNKNOWN} if it wasn't captured
+     */
+    public int getStateId(int x, int y, int z) {
+        Section section = getSection(x >> 4, y >> 4, z >> 4);
+        return section != null ? section.getStateId((y & 15) << 8 | (z & 15) << 4 | (x & 15)) : UNKNOWN;
+    }
+
+    /**
+     * @return Whether the section with the given section coordinates was captured
+     */
+    public boolean hasSection(int sx, int sy, int sz) {
+        return getSection(sx, sy, sz) != null;
+    }
+
+    //a copy of a section's PalettedContainer, in the same layout as its BitArray
+    private static final class Section {
+        private final int bits;
+        private final long mask;
+        @Nullable
+        private final int[] palette;
+        private final long[] data;
+
+        private Section(int bits, @Nullable int[] palette, long[] data) {
+            this.bits = bits;
+            this.mask = (1L << bits) - 1;
+            this.palette = palette;
+            this.data = data;
+        }
+
+        private int getStateId(int index) {
+            //entries may span two longs
+            long bitIndex = (long) index * bits;
+            int start = (int) (bitIndex >> 6);
+            int end = (int) ((bitIndex + bits - 1) >> 6);
+            int offset = (int) (bitIndex & 63);
+            long value = data[start] >>> offset;
+            if (start != end)
+                value |= data[end] << (64 - offset);
+            int id = (int) (value & mask);
+            return palette != null ? palette[id] : id;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.direwolf20.buildinggadgets.common.building.shape;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A {@link Shape} covering an axis aligned box, optionally only every n-th position along each axis. Positions are emitted x first,
+ * then z, then y - so consecutive positions mostly share a chunk section.
+ */
+public final class BoxShape implements Shape {
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int step;
+
+    private BoxShape(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int step) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.step = step;
+    }
+
+    /**
+     * @return A box containing both corners and every position in between
+     */
+    public static BoxShape between(BlockPos a, BlockPos b) {
+        return between(a, b, 1);
+    }
+
+    /**
+     * @param step Only every step-th position along each axis (counted from the minimum corner) is part of the box
+     * @return A box spanning both corners
+     */
+    public static BoxShape between(BlockPos a, BlockPos b, int step) {
+        Preconditions.checkArgument(step > 0, "Step must be positive, got %s", step);
+        return new BoxShape(Math.min(a.getX(), b.getX()), Math.min(a.getY(), b.getY()), Math.min(a.getZ(), b.getZ()),
+                Math.max(a.getX(), b.getX()), Math.max(a.getY(), b.getY()), Math.max(a.getZ(), b.getZ()), step);
+    }
+
+    private int count(int min, int max) {
+        return (max - min) / step + 1;
+    }
+
+    @Override
+    public int size() {
+        return count(minX, maxX) * count(minY, maxY) * count(minZ, maxZ);
+    }
+
+    @Override
+    public BlockPos getMin() {
+        return new BlockPos(minX, minY, minZ);
+    }
+
+    @Override
+    public BlockPos getMax() {
+        return new BlockPos(maxX, maxY, maxZ);
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ
+                && (step == 1 || ((x - minX) % step == 0 && (y - minY) % step == 0 && (z - minZ) % step == 0));
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new BoxIterator();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("min", minX + "," + minY + "," + minZ)
+                .add("max", maxX + "," + maxY + "," + maxZ)
+                .add("step", step)
+                .toString();
+    }
+
+    private final class BoxIterator implements PrimitiveIterator.OfLong {
+        private int x = minX;
+        private int y = minY;
+        private int z = minZ;
+        private boolean hasNext = true;
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public long nextLong() {
+            if (! hasNext)
+                throw new NoSuchElementException();
+            long pos = BlockPos.pack(x, y, z);
+            x += step;
+            if (x > maxX) {
+                x = minX;
+                z += step;
+                if (z > maxZ) {
+                    z = minZ;
+                    y += step;
+                    hasNext = y <= maxY;
+                }
+            }
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.direwolf20.buildinggadgets.common.building.shape;
+
+import net.minecraft.util.Direction;
+import net.minecraft.util.Direction.Axis;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * The shapes a gadget can build. Each mode creates a {@link Shape} from the position the gadget was used on and the size given by
+ * the gadget's {@link com.direwolf20.core.traits.Trait#MAX_SIZE} - which is the edge length of squares and the length of lines.
+ */
+public enum BuildMode {
+    /**
+     * A square on the clicked face.
+     */
+    SURFACE {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            return square(origin, face.getAxis(), radius(size), 1);
+        }
+    },
+    /**
+     * A vertical square - on the clicked face if that is a side, otherwise growing away from it across the player's view.
+     */
+    VERTICAL_WALL {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            if (face.getAxis().isHorizontal())
+                return square(origin, face.getAxis(), radius(size), 1);
+            return rectangle(origin, face, facing.rotateY().getAxis(), size, radius(size));
+        }
+    },
+    /**
+     * A horizontal square - on the clicked face if that is the top or bottom, otherwise growing away from it.
+     */
+    HORIZONTAL_WALL {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            if (face.getAxis().isVertical())
+                return square(origin, Axis.Y, radius(size), 1);
+            return rectangle(origin, face, face.rotateY().getAxis(), size, radius(size));
+        }
+    },
+    /**
+     * A vertical line - growing away from the clicked face if that is the top or bottom, otherwise centered on it.
+     */
+    VERTICAL_COLUMN {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            if (face.getAxis().isVertical())
+                return line(origin, face, size);
+            int radius = radius(size);
+            return BoxShape.between(origin.down(radius), origin.up(radius));
+        }
+    },
+    /**
+     * A horizontal line - growing away from the clicked face if that is a side, otherwise in the direction the player looks.
+     */
+    HORIZONTAL_COLUMN {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            return line(origin, face.getAxis().isHorizontal() ? face : facing, size);
+        }
+    },
+    /**
+     * Every second position of a {@link #SURFACE}.
+     */
+    GRID {
+        @Override
+        public Shape createShape(BlockPos origin, Direction face, Direction facing, int size) {
+            return square(origin, face.getAxis(), radius(size), 2);
+        }
+    };
+
+    /**
+     * @param origin The first position to build at, usually the position next to the clicked block
+     * @param face   The clicked face
+     * @param facing The horizontal direction the player is facing
+     * @param size   The size of the shape
+     * @return The shape to build
+     */
+    public abstract Shape createShape(BlockPos origin, Direction face, Direction facing, int size);
+
+    public BuildMode next() {
+        BuildMode[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+
+    private static int radius(int size) {
+        return Math.max(size - 1, 0) / 2;
+    }
+
+    private static Shape square(BlockPos origin, Axis normal, int radius, int step) {
+        int x = normal == Axis.X ? 0 : radius;
+        int y = normal == Axis.Y ? 0 : radius;
+        int z = normal == Axis.Z ? 0 : radius;
+        return BoxShape.between(origin.add(- x, - y, - z), origin.add(x, y, z), step);
+    }
+
+    private static Shape rectangle(BlockPos origin, Direction grow, Axis across, int length, int radius) {
+        BlockPos end = origin.offset(grow, Math.max(length, 1) - 1);
+        int x = across == Axis.X ? radius : 0;
+        int y = across == Axis.Y ? radius : 0;
+        int z = across == Axis.Z ? radius : 0;
+        return BoxShape.between(origin.add(- x, - y, - z), end.add(x, y, z));
+    }
+
+    private static Shape line(BlockPos origin, Direction direction, int length) {
+        return BoxShape.between(origin, origin.offset(direction, Math.max(length, 1) - 1));
+    }
+}
@@ -0,0 +1,54 @@
+package com.direwolf20.buildinggadgets.common.building.shape;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A lazily generated set of block positions. Positions are emitted packed into a long, using the layout of
+ * {@link BlockPos#toLong()} - use {@link BlockPos#unpackX(long)} and friends or a {@link BlockPos.Mutable} to read them, so that
+ * walking a shape doesn't allocate a {@link BlockPos} per position.
+ * <p>
+ * Shapes are immutable and every call to {@link #iterator()} starts a new walk, so the same shape can back a preview, a cost estimate
+ * and the actual placement. Each position is emitted exactly once.
+ * <p>
+ * Besides walking it, a shape can be tested for single positions via {@link #contains(int, int, int)}. This allows splitting work on
+ * it by region, for example by chunk section.
+ */
+public interface Shape {
+    /**
+     * @return The number of positions in this shape. This is known without walking it.
+     */
+    int size();
+
+    /**
+     * @return The minimum corner of the box enclosing all positions of this shape
+     */
+    BlockPos getMin();
+
+    /**
+     * @return The maximum corner of the box enclosing all positions of this shape
+     */
+    BlockPos getMax();
+
+    /**
+     * @return Whether the given position is part of this shape
+     */
+    boolean contains(int x, int y, int z);
+
+    PrimitiveIterator.OfLong iterator();
+
+    default void forEach(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    default LongStream stream() {
+        return StreamSupport.longStream(Spliterators.spliterator(iterator(), size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+}
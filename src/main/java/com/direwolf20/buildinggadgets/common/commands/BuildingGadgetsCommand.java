@@ -0,0 +1,19 @@
+package com.direwolf20.buildinggadgets.common.commands;
+
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+
+/**
+ * The root {@code /buildinggadgets} command. Sub commands are registered as children of this one.
+ */
+public final class BuildingGadgetsCommand {
+    private BuildingGadgetsCommand() {}
+
+    public static void register(CommandDispatcher<CommandSource> dispatcher) {
+        dispatcher.register(Commands.literal(BuildingGadgets.MOD_ID)
+                .then(ProfileCommand.builder())
+                .then(CancelCommand.builder()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.direwolf20.buildinggadgets.common.commands;
+
+import com.direwolf20.buildinggadgets.common.building.BuildScheduler;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+
+/**
+ * {@code /buildinggadgets cancel} - cancels all queued gadget operations of the executing player. Blocks which were already placed
+ * stay in place and are paid for.
+ */
+final class CancelCommand {
+    private CancelCommand() {}
+
+    static LiteralArgumentBuilder<CommandSource> builder() {
+        return Commands.literal("cancel")
+                .executes(CancelCommand::cancel);
+    }
+
+    private static int cancel(CommandContext<CommandSource> context) throws CommandSyntaxException {
+        int cancelled = BuildScheduler.cancel(context.getSource().asPlayer().getUniqueID());
+        context.getSource().sendFeedback(new StringTextComponent("Cancelled " + cancelled + " operation(s)"), false);
+        return cancelled;
+    }
+}
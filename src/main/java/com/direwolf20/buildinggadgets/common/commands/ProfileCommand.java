@@ -0,0 +1,80 @@
+package com.direwolf20.buildinggadgets.common.commands;
+
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.core.metrics.Metrics;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * {@code /buildinggadgets profile [start|stop|reset|dump|sample <n>]} - controls the collection of {@link Metrics}. Without any
+ * argument, the current report is printed. Dumps are written to {@code <world>/buildinggadgets/profile-<time>.txt}.
+ */
+final class ProfileCommand {
+    private static final String ARG_RATE = "rate";
+
+    private ProfileCommand() {}
+
+    static LiteralArgumentBuilder<CommandSource> builder() {
+        return Commands.literal("profile")
+                .requires(source -> source.hasPermissionLevel(2))
+                .executes(ProfileCommand::report)
+                .then(Commands.literal("start").executes(context -> setEnabled(context, true)))
+                .then(Commands.literal("stop").executes(context -> setEnabled(context, false)))
+                .then(Commands.literal("reset").executes(ProfileCommand::reset))
+                .then(Commands.literal("dump").executes(ProfileCommand::dump))
+                .then(Commands.literal("sample")
+                        .then(Commands.argument(ARG_RATE, IntegerArgumentType.integer(1))
+                                .executes(ProfileCommand::setSampleRate)));
+    }
+
+    private static int report(CommandContext<CommandSource> context) {
+        for (String line : Metrics.report())
+            context.getSource().sendFeedback(new StringTextComponent(line), false);
+        return 1;
+    }
+
+    private static int setEnabled(CommandContext<CommandSource> context, boolean enabled) {
+        Metrics.setEnabled(enabled);
+        context.getSource().sendFeedback(new StringTextComponent("Profiling " + (enabled ? "started" : "stopped")), true);
+        return 1;
+    }
+
+    private static int reset(CommandContext<CommandSource> context) {
+        Metrics.reset();
+        context.getSource().sendFeedback(new StringTextComponent("Profiling data reset"), true);
+        return 1;
+    }
+
+    private static int setSampleRate(CommandContext<CommandSource> context) {
+        int rate = IntegerArgumentType.getInteger(context, ARG_RATE);
+        Metrics.setSampleRate(rate);
+        context.getSource().sendFeedback(new StringTextComponent("Recording every " + rate + ". timing"), true);
+        return 1;
+    }
+
+    private static int dump(CommandContext<CommandSource> context) {
+        Path dir = context.getSource().getServer().getWorld(DimensionType.OVERWORLD).getSaveHandler().getWorldDirectory().toPath()
+                .resolve(BuildingGadgets.MOD_ID);
+        Path file = dir.resolve("profile-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss", Locale.ROOT).format(new Date()) + ".txt");
+        try {
+            Metrics.dump(file);
+        } catch (IOException e) {
+            BuildingGadgets.LOG.error("Failed to write profile to {}", file, e);
+            context.getSource().sendErrorMessage(new StringTextComponent("Failed to write profile: " + e.getMessage()));
+            return 0;
+        }
+        context.getSource().sendFeedback(new StringTextComponent("Profile written to " + file), false);
+        return 1;
+    }
+}
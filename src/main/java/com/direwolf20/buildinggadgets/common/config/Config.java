@@ -1,4 +1,32 @@
 package com.direwolf20.buildinggadgets.common.config;
 
+import net.minecraftforge.common.ForgeConfigSpec;
+
 public class Config {
+    private static final ForgeConfigSpec.Builder SERVER_BUILDER = new ForgeConfigSpec.Builder();
+
+    public static final Building BUILDING = new Building(SERVER_BUILDER);
+
+    public static final ForgeConfigSpec SERVER_SPEC = SERVER_BUILDER.build();
+
+    public static final class Building {
+        public final ForgeConfigSpec.LongValue tickBudgetNanos;
+        public final ForgeConfigSpec.IntValue maxQueuedJobs;
+        public final ForgeConfigSpec.IntValue progressInterval;
+
+        private Building(ForgeConfigSpec.Builder builder) {
+            builder.comment("Settings for how gadget operations are scheduled on the server").push("building");
+            tickBudgetNanos = builder
+                    .comment("The time in nanoseconds which may be spent on placing blocks per server tick, summed over all players.",
+                            "Work that doesn't fit into this budget is continued in the next tick.")
+                    .defineInRange("tickBudgetNanos", 5_000_000L, 100_000L, 50_000_000L);
+            maxQueuedJobs = builder
+                    .comment("The maximum number of operations a single player may have queued at once. Further operations are rejected.")
+                    .defineInRange("maxQueuedJobs", 4, 1, 64);
+            progressInterval = builder
+                    .comment("The number of ticks between progress updates shown to a player with unfinished operations")
+                    .defineInRange("progressInterval", 10, 1, 200);
+            builder.pop();
+        }
+    }
 }
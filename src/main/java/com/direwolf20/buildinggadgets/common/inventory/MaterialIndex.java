@@ -0,0 +1,260 @@
+package com.direwolf20.buildinggadgets.common.inventory;
+
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.core.collect.LongIntHashMap;
+import com.google.common.base.Preconditions;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.IContainerListener;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.NonNullList;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Counts the items in a player's main inventory and offhand by type, so that asking whether a player has N of some item is a single
+ * lookup instead of an inventory walk. The index listens on the player's {@link net.minecraft.inventory.container.PlayerContainer}
+ * and applies each slot change vanilla reports as a delta to the counts. Armor and crafting slots are not counted, and neither are
+ * stacks with nbt - renamed, enchanted or damaged items, shulker boxes with contents and the like are never used as materials.
+ * <p>
+ * Materials are taken in bulk via {@link #reserve(Item, int)}, which removes them from the inventory right away and hands them to a
+ * {@link Reservation}. Operations then consume from the reservation per block and give back the rest once they
+ * {@link Reservation#commit() commit} it - so the inventory is walked at most twice per operation, and moving items out of it while
+ * the operation runs can't be used to build for free.
+ * <p>
+ * Indices may only be used on the server thread. They are dropped when their player logs out and rebuilt when the player entity is
+ * replaced, for example on respawn.
+ */
+@EventBusSubscriber(modid = BuildingGadgets.MOD_ID)
+public final class MaterialIndex implements IContainerListener {
+    private static final Map<UUID, MaterialIndex> INDICES = new HashMap<>();
+    private static final int EMPTY = - 1;
+    private final ServerPlayerEntity player;
+    private final Container container;
+    //item id -> count
+    private final LongIntHashMap counts;
+    //per container slot: whether it is counted, and the item id and count last seen in it - empty for stacks with nbt
+    private final boolean[] counted;
+    private final int[] slotItems;
+    private final int[] slotCounts;
+
+    private MaterialIndex(ServerPlayerEntity player) {
+        this.player = player;
+        this.container = player.container;
+        this.counts = new LongIntHashMap();
+        int size = container.inventorySlots.size();
+        this.counted = new boolean[size];
+        this.slotItems = new int[size];
+        this.slotCounts = new int[size];
+        PlayerInventory inventory = player.inventory;
+        int mainSize = inventory.mainInventory.size();
+        int offHandStart = mainSize + inventory.armorInventory.size();
+        for (int i = 0; i < size; i++) {
+            Slot slot = container.getSlot(i);
+            counted[i] = slot.inventory == inventory && (slot.getSlotIndex() < mainSize || slot.getSlotIndex() >= offHandStart);
+        }
+        Arrays.fill(slotItems, EMPTY);
+    }
+
+    /**
+     * @return The index of the given player, which is brought up to date with the inventory first
+     */
+    public static MaterialIndex get(ServerPlayerEntity player) {
+        MaterialIndex index = INDICES.get(player.getUniqueID());
+        if (index != null && index.player == player) {
+            index.sync();
+            return index;
+        }
+        if (index != null) //the player entity was replaced
+            index.container.removeListener(index);
+        index = new MaterialIndex(player);
+        INDICES.put(player.getUniqueID(), index);
+        //vanilla sends the whole inventory to new listeners, which fills the index
+        player.container.addListener(index);
+        return index;
+    }
+
+    private void sync() {
+        //the player's own container is only checked for changes while no other container is open
+        if (player.openContainer == container)
+            container.detectAndSendChanges();
+        else
+            sendAllContents(container, container.getInventory());
+    }
+
+    /**
+     * @return How many items of the given type without nbt the player has
+     */
+    public int count(Item item) {
+        return counts.getOrDefault(Item.getIdFromItem(item), 0);
+    }
+
+    /**
+     * Removes up to count items of the given type from the inventory and holds them in a new {@link Reservation}. Only stacks without
+     * nbt are taken, so that giving back what wasn't consumed can't lose any data.
+     *
+     * @param item  The item to take
+     * @param count The maximum amount to take
+     * @return A reservation holding the taken items, which may be less than count or even none
+     */
+    public Reservation reserve(Item item, int count) {
+        Preconditions.checkArgument(count >= 0, "Cannot reserve a negative amount of items!");
+        int id = Item.getIdFromItem(item);
+        int taken = 0;
+        for (int i = 0; i < slotItems.length && taken < count; i++) {
+            if (slotItems[i] != id)
+                continue;
+            ItemStack stack = container.getSlot(i).getStack();
+            if (stack.getItem() == item && ! stack.hasTag()) {
+                int amount = Math.min(stack.getCount(), count - taken);
+                stack.shrink(amount);
+                taken += amount;
+            }
+            //apply our own change right away, vanilla reports it as a no-op later on
+            update(i, stack);
+        }
+        if (taken > 0)
+            player.inventory.markDirty();
+        return new Reservation(item, taken);
+    }
+
+    private void giveBack(Item item, int count) {
+        //the player entity may have been replaced while the reservation was open
+        ServerPlayerEntity target = player.server.getPlayerList().getPlayerByUUID(player.getUniqueID());
+        if (target == null)
+            target = player;
+        int maxStackSize = item.getMaxStackSize();
+        while (count > 0) {
+            ItemStack stack = new ItemStack(item, Math.min(count, maxStackSize));
+            count -= stack.getCount();
+            target.inventory.addItemStackToInventory(stack);
+            if (! stack.isEmpty())
+                target.dropItem(stack, false);
+        }
+    }
+
+    private void update(int slot, ItemStack stack) {
+        if (slotItems[slot] != EMPTY && counts.addTo(slotItems[slot], - slotCounts[slot]) <= 0)
+            counts.remove(slotItems[slot]);
+        if (stack.isEmpty() || stack.hasTag()) {
+            slotItems[slot] = EMPTY;
+            slotCounts[slot] = 0;
+        } else {
+            slotItems[slot] = Item.getIdFromItem(stack.getItem());
+            slotCounts[slot] = stack.getCount();
+            counts.addTo(slotItems[slot], slotCounts[slot]);
+        }
+    }
+
+    @Override
+    public void sendAllContents(Container container, NonNullList<ItemStack> items) {
+        counts.clear();
+        Arrays.fill(slotItems, EMPTY);
+        Arrays.fill(slotCounts, 0);
+        for (int i = 0; i < counted.length && i < items.size(); i++) {
+            if (counted[i])
+                update(i, items.get(i));
+        }
+    }
+
+    @Override
+    public void sendSlotContents(Container container, int slot, ItemStack stack) {
+        if (slot >= 0 && slot < counted.length && counted[slot])
+            update(slot, stack);
+    }
+
+    @Override
+    public void sendWindowProperty(Container container, int varToUpdate, int newValue) {
+        //not relevant for the player's inventory
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        MaterialIndex index = INDICES.remove(event.getPlayer().getUniqueID());
+        if (index != null)
+            index.container.removeListener(index);
+    }
+
+    /**
+     * Items which were taken from a player's inventory for an operation. Consuming from a reservation is plain arithmetic, the
+     * inventory is only touched again once the reservation is closed via {@link #commit()} or {@link #release()}. Items which
+     * don't fit into the inventory anymore at that point are dropped at the player's feet.
+     */
+    public final class Reservation {
+        private final Item item;
+        private final int amount;
+        private int remaining;
+        private boolean closed;
+
+        private Reservation(Item item, int amount) {
+            this.item = item;
+            this.amount = amount;
+            this.remaining = amount;
+        }
+
+        /**
+         * @param amount The amount of items to consume
+         * @return Whether there were enough items left in this reservation. If not, nothing is consumed.
+         */
+        public boolean consume(int amount) {
+            Preconditions.checkState(! closed, "Cannot consume from a closed reservation!");
+            if (amount > remaining)
+                return false;
+            remaining -= amount;
+            return true;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+
+        public int getReserved() {
+            return amount;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public int getConsumed() {
+            return amount - remaining;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Gives the items which weren't consumed back to the player. Does nothing if the reservation was already closed.
+         *
+         * @return The amount of items which were consumed
+         */
+        public int commit() {
+            if (closed)
+                return 0;
+            closed = true;
+            giveBack(item, remaining);
+            return getConsumed();
+        }
+
+        /**
+         * Gives all reserved items back to the player, regardless of what was consumed. Does nothing if the reservation was already
+         * closed.
+         */
+        public void release() {
+            if (closed)
+                return;
+            closed = true;
+            giveBack(item, amount);
+        }
+    }
+}
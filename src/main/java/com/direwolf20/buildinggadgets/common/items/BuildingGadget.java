@@ -1,4 +1,150 @@
 package com.direwolf20.buildinggadgets.common.items;
 
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.buildinggadgets.common.building.BuildScheduler;
+import com.direwolf20.buildinggadgets.common.building.PlacementPlan;
+import com.direwolf20.buildinggadgets.common.building.PlacementPlanner;
+import com.direwolf20.buildinggadgets.common.building.WorldSnapshot;
+import com.direwolf20.buildinggadgets.common.building.shape.BuildMode;
+import com.direwolf20.buildinggadgets.common.building.shape.Shape;
+import com.direwolf20.core.capability.PropertyContainerCapability;
+import com.direwolf20.core.capability.TraitContainerCapability;
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.metrics.Metrics;
+import com.direwolf20.core.properties.IPropertyContainer;
+import com.direwolf20.core.properties.MutableProperty;
+import com.direwolf20.core.properties.Property;
+import com.direwolf20.core.properties.PropertyContainer;
+import com.direwolf20.core.traits.ITraitContainer;
+import com.direwolf20.core.traits.Trait;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.ItemUseContext;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Direction;
+import net.minecraft.util.Hand;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 public class BuildingGadget extends Gadget {
+    public static final MutableProperty<BlockState> BLOCK_STATE = Property.builder(BlockState.class)
+            .serializer(NBTUtil::writeBlockState)
+            .deserializer(nbt -> NBTUtil.readBlockState((CompoundNBT) nbt))
+            .buildMutable(BuildingGadgets.MOD_ID, "block_state");
+    public static final MutableProperty<BuildMode> MODE = Property.enumBuilder(BuildMode.class)
+            .buildMutable(BuildingGadgets.MOD_ID, "mode");
+
+    private static final String KEY_MODE = "message." + BuildingGadgets.MOD_ID + ".mode";
+    private static final String KEY_SELECTED = "message." + BuildingGadgets.MOD_ID + ".block_selected";
+    static final String KEY_NO_BLOCK = "message." + BuildingGadgets.MOD_ID + ".no_block_selected";
+
+    @Override
+    protected PropertyContainer.Builder onAttachProperties(PropertyContainer.Builder builder) {
+        return super.onAttachProperties(builder)
+                .putProperty(BLOCK_STATE, Blocks.AIR.getDefaultState())
+                .putProperty(MODE, BuildMode.SURFACE);
+    }
+
+    @Override
+    public ActionResultType onItemUse(ItemUseContext context) {
+        PlayerEntity player = context.getPlayer();
+        if (context.getWorld().isRemote() || player == null)
+            return ActionResultType.SUCCESS;
+
+        ItemStack stack = context.getItem();
+        if (player.isShiftKeyDown())
+            return selectBlock(stack, player, context.getWorld().getBlockState(context.getPos()));
+
+        long start = Metrics.GADGET_ACTIONS.startTimer();
+        ActionResultType result = build(stack, (ServerPlayerEntity) player, context.getHand(), context.getPos().offset(context.getFace()),
+                context.getFace(), context.getPlacementHorizontalFacing());
+        Metrics.GADGET_ACTIONS.stopTimer(start);
+        return result;
+    }
+
+    @Override
+    public ActionResult<ItemStack> onItemShiftRightClick(World world, PlayerEntity player, Hand hand) {
+        ItemStack stack = player.getHeldItem(hand);
+        if (! world.isRemote())
+            stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY).ifPresent(container -> {
+                BuildMode mode = container.getProperty(MODE).orElse(BuildMode.SURFACE).next();
+                container.setProperty(MODE, mode);
+                player.sendStatusMessage(new TranslationTextComponent(KEY_MODE, mode.name().toLowerCase(Locale.ROOT)), true);
+            });
+        return ActionResult.resultSuccess(stack);
+    }
+
+    static ActionResultType selectBlock(ItemStack stack, PlayerEntity player, BlockState state) {
+        stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY)
+                .ifPresent(container -> container.setProperty(BLOCK_STATE, state));
+        player.sendStatusMessage(new TranslationTextComponent(KEY_SELECTED, state.getBlock().getNameTextComponent()), true);
+        return ActionResultType.SUCCESS;
+    }
+
+    private ActionResultType build(ItemStack stack, ServerPlayerEntity player, Hand hand, BlockPos origin, Direction face, Direction facing) {
+        IPropertyContainer properties = stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY).orElse(null);
+        ITraitContainer traits = stack.getCapability(TraitContainerCapability.TRAIT_CONTAINER_CAPABILITY).orElse(null);
+        TraitEnergyStorage energy = getEnergyStorage(stack).orElse(null);
+        if (properties == null || traits == null || energy == null)
+            return ActionResultType.FAIL;
+
+        BlockState state = properties.getProperty(BLOCK_STATE).orElse(Blocks.AIR.getDefaultState());
+        if (state.isAir()) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_NO_BLOCK), true);
+            return ActionResultType.FAIL;
+        }
+
+        boolean creative = player.isCreative();
+        //reject what can't be paid for at all, before doing any work
+        if (! creative && energy.getEnergyStored() < energy.getActionCost()) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_NO_ENERGY, energy.getActionCost()), true);
+            return ActionResultType.FAIL;
+        }
+        //hold a place in the queue while planning, so that plans in flight count towards the queue's bound
+        BuildScheduler.Slot slot = BuildScheduler.reserveSlot(player.getUniqueID()).orElse(null);
+        if (slot == null) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_QUEUE_FULL), true);
+            return ActionResultType.FAIL;
+        }
+
+        BuildMode mode = properties.getProperty(MODE).orElse(BuildMode.SURFACE);
+        Shape shape = mode.createShape(origin, face, facing, traits.getInt(Trait.MAX_SIZE, 1));
+        ServerWorld world = player.getServerWorld();
+        UUID owner = player.getUniqueID();
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, shape.getMin(), shape.getMax());
+        CompletableFuture<PlacementPlan> planned = new PlacementPlanner(shape, state, snapshot, player.getEyePosition(1f),
+                traits.getInt(Trait.MAX_RANGE, 0)).plan();
+        if (planned.isDone() && ! planned.isCompletedExceptionally())
+            schedulePlacement(world, owner, hand, slot, planned.join(), BuildingGadget::isReplaceable, creative, null);
+        else
+            planned.handleAsync((plan, failure) -> {
+                if (failure == null)
+                    schedulePlacement(world, owner, hand, slot, plan, BuildingGadget::isReplaceable, creative, null);
+                else {
+                    slot.release();
+                    BuildingGadgets.LOG.error("Failed to plan placement of {} for {}", shape, owner, failure);
+                }
+                return null;
+            }, world.getServer()).exceptionally(t -> {
+                BuildingGadgets.LOG.error("Failed to schedule placement of {} for {}", shape, owner, t);
+                return null;
+            });
+        return ActionResultType.SUCCESS;
+    }
+
+    private static boolean isReplaceable(BlockState state) {
+        return state.getMaterial().isReplaceable();
+    }
 }
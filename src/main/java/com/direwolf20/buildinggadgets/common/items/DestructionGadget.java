@@ -1,4 +1,88 @@
 package com.direwolf20.buildinggadgets.common.items;
 
+import com.direwolf20.buildinggadgets.common.building.BuildScheduler;
+import com.direwolf20.buildinggadgets.common.building.DestructionJob;
+import com.direwolf20.buildinggadgets.common.building.DropAggregator;
+import com.direwolf20.core.capability.TraitContainerCapability;
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.metrics.Metrics;
+import com.direwolf20.core.traits.ITraitContainer;
+import com.direwolf20.core.traits.Trait;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.ItemUseContext;
+import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerWorld;
+
+/**
+ * Clears a box of blocks behind the clicked face: {@code 2 * size + 1} blocks deep and {@code size} blocks to each side of the
+ * clicked block, where size is the gadget's {@link Trait#MAX_SIZE}. The work is done by a {@link DestructionJob}, which clears
+ * whole chunk sections in bulk. Blocks the player couldn't break by hand, because of spawn protection or a cancelled break event,
+ * are left in place.
+ */
 public class DestructionGadget extends Gadget {
+    @Override
+    public ActionResultType onItemUse(ItemUseContext context) {
+        PlayerEntity player = context.getPlayer();
+        if (context.getWorld().isRemote() || player == null)
+            return ActionResultType.SUCCESS;
+
+        ItemStack stack = context.getItem();
+        if (! player.canPlayerEdit(context.getPos(), context.getFace(), stack))
+            return ActionResultType.FAIL;
+        long start = Metrics.GADGET_ACTIONS.startTimer();
+        ActionResultType result = destroy(stack, (ServerPlayerEntity) player, context.getPos(), context.getFace().getOpposite());
+        Metrics.GADGET_ACTIONS.stopTimer(start);
+        return result;
+    }
+
+    private ActionResultType destroy(ItemStack stack, ServerPlayerEntity player, BlockPos origin, Direction into) {
+        ITraitContainer traits = stack.getCapability(TraitContainerCapability.TRAIT_CONTAINER_CAPABILITY).orElse(null);
+        TraitEnergyStorage energy = getEnergyStorage(stack).orElse(null);
+        if (traits == null || energy == null)
+            return ActionResultType.FAIL;
+
+        if (! BuildScheduler.canSubmit(player.getUniqueID())) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_QUEUE_FULL), true);
+            return ActionResultType.FAIL;
+        }
+        TraitEnergyStorage.Reservation reservation = null;
+        if (! player.isCreative()) {
+            int cost = energy.getActionCost();
+            if (energy.getEnergyStored() < cost) {
+                player.sendStatusMessage(new TranslationTextComponent(KEY_NO_ENERGY, cost), true);
+                return ActionResultType.FAIL;
+            }
+            //reserve every affordable action, as the amount of blocks is only known while clearing. Only removed blocks are paid for.
+            reservation = energy.reserveActions(cost > 0 ? energy.getEnergyStored() / cost : 0)
+                    .orElseThrow(() -> new IllegalStateException("Stored energy must be reservable"));
+        }
+
+        int size = traits.getInt(Trait.MAX_SIZE, 1);
+        BlockPos far = origin.offset(into, 2 * size);
+        Direction.Axis axis = into.getAxis();
+        int spreadX = axis == Direction.Axis.X ? 0 : size;
+        int spreadY = axis == Direction.Axis.Y ? 0 : size;
+        int spreadZ = axis == Direction.Axis.Z ? 0 : size;
+        BlockPos min = new BlockPos(Math.min(origin.getX(), far.getX()) - spreadX, Math.min(origin.getY(), far.getY()) - spreadY,
+                Math.min(origin.getZ(), far.getZ()) - spreadZ);
+        BlockPos max = new BlockPos(Math.max(origin.getX(), far.getX()) + spreadX, Math.max(origin.getY(), far.getY()) + spreadY,
+                Math.max(origin.getZ(), far.getZ()) + spreadZ);
+
+        ServerWorld world = player.getServerWorld();
+        //like breaking blocks by hand, creative players don't get drops
+        DropAggregator drops = reservation == null ? null : new DropAggregator(world, player.getUniqueID(), origin,
+                traits.getBoolean(Trait.SILK_TOUCH, false));
+        if (! BuildScheduler.submit(new DestructionJob(world, player.getUniqueID(), min, max, reservation, drops))) {
+            if (reservation != null)
+                reservation.release();
+            player.sendStatusMessage(new TranslationTextComponent(KEY_QUEUE_FULL), true);
+            return ActionResultType.FAIL;
+        }
+        return ActionResultType.SUCCESS;
+    }
 }
@@ -1,4 +1,105 @@
 package com.direwolf20.buildinggadgets.common.items;
 
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.buildinggadgets.common.building.BuildScheduler;
+import com.direwolf20.buildinggadgets.common.building.DropAggregator;
+import com.direwolf20.buildinggadgets.common.building.FloodFill;
+import com.direwolf20.buildinggadgets.common.building.WorldSnapshot;
+import com.direwolf20.core.capability.PropertyContainerCapability;
+import com.direwolf20.core.capability.TraitContainerCapability;
+import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.metrics.Metrics;
+import com.direwolf20.core.properties.IPropertyContainer;
+import com.direwolf20.core.properties.PropertyContainer;
+import com.direwolf20.core.traits.ITraitContainer;
+import com.direwolf20.core.traits.Trait;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.ItemUseContext;
+import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Hand;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerWorld;
+
+/**
+ * Replaces the area of blocks connected to the clicked one, which are of the same block, with the selected state. The area is found
+ * by a {@link FloodFill} and bounded by {@link Trait#MAX_SIZE} in each direction, {@link Trait#MAX_RANGE} and as many blocks as the
+ * largest building shape of the same size covers. Only blocks the player could break and place by hand are exchanged.
+ */
 public class ExchangingGadget extends Gadget {
+    private static final String KEY_TRUNCATED = "message." + BuildingGadgets.MOD_ID + ".exchange.truncated";
+
+    @Override
+    protected PropertyContainer.Builder onAttachProperties(PropertyContainer.Builder builder) {
+        return super.onAttachProperties(builder)
+                .putProperty(BuildingGadget.BLOCK_STATE, Blocks.AIR.getDefaultState());
+    }
+
+    @Override
+    public ActionResultType onItemUse(ItemUseContext context) {
+        PlayerEntity player = context.getPlayer();
+        if (context.getWorld().isRemote() || player == null)
+            return ActionResultType.SUCCESS;
+
+        ItemStack stack = context.getItem();
+        BlockState clicked = context.getWorld().getBlockState(context.getPos());
+        if (player.isShiftKeyDown())
+            return BuildingGadget.selectBlock(stack, player, clicked);
+        //unbreakable blocks can't be exchanged, the job would skip every single one of them anyway
+        if (clicked.getBlockHardness(context.getWorld(), context.getPos()) < 0)
+            return ActionResultType.FAIL;
+
+        long start = Metrics.GADGET_ACTIONS.startTimer();
+        ActionResultType result = exchange(stack, (ServerPlayerEntity) player, context.getHand(), context.getPos(), clicked.getBlock());
+        Metrics.GADGET_ACTIONS.stopTimer(start);
+        return result;
+    }
+
+    private ActionResultType exchange(ItemStack stack, ServerPlayerEntity player, Hand hand, BlockPos origin, Block target) {
+        IPropertyContainer properties = stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY).orElse(null);
+        ITraitContainer traits = stack.getCapability(TraitContainerCapability.TRAIT_CONTAINER_CAPABILITY).orElse(null);
+        TraitEnergyStorage energy = getEnergyStorage(stack).orElse(null);
+        if (properties == null || traits == null || energy == null)
+            return ActionResultType.FAIL;
+
+        BlockState state = properties.getProperty(BuildingGadget.BLOCK_STATE).orElse(Blocks.AIR.getDefaultState());
+        if (state.isAir() || target == Blocks.AIR) {
+            player.sendStatusMessage(new TranslationTextComponent(BuildingGadget.KEY_NO_BLOCK), true);
+            return ActionResultType.FAIL;
+        }
+
+        boolean creative = player.isCreative();
+        if (! creative && energy.getEnergyStored() < energy.getActionCost()) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_NO_ENERGY, energy.getActionCost()), true);
+            return ActionResultType.FAIL;
+        }
+        BuildScheduler.Slot slot = BuildScheduler.reserveSlot(player.getUniqueID()).orElse(null);
+        if (slot == null) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_QUEUE_FULL), true);
+            return ActionResultType.FAIL;
+        }
+
+        int size = traits.getInt(Trait.MAX_SIZE, 1);
+        BlockPos min = origin.add(- size, - size, - size);
+        BlockPos max = origin.add(size, size, size);
+        ServerWorld world = player.getServerWorld();
+        //the box is small enough to fill directly, the snapshot only keeps the fill from loading chunks
+        WorldSnapshot snapshot = WorldSnapshot.capture(world, min, max);
+        FloodFill.Result area = new FloodFill(snapshot, id -> Block.getStateById(id).getBlock() == target,
+                min, max, player.getEyePosition(1f), traits.getInt(Trait.MAX_RANGE, 0), (2 * size + 1) * (2 * size + 1)).fill(origin);
+        if (area.isTruncated())
+            player.sendStatusMessage(new TranslationTextComponent(KEY_TRUNCATED, area.size()), false);
+        //blocks which already are the selected state don't need exchanging, so re-running an exchange is free
+        //like breaking blocks by hand, creative players don't get drops
+        DropAggregator drops = creative ? null : new DropAggregator(world, player.getUniqueID(), origin,
+                traits.getBoolean(Trait.SILK_TOUCH, false));
+        schedulePlacement(world, player.getUniqueID(), hand, slot, area.toPlan(state).diff(snapshot), current -> current.getBlock() == target,
+                creative, drops);
+        return ActionResultType.SUCCESS;
+    }
 }
@@ -1,26 +1,68 @@
 package com.direwolf20.buildinggadgets.common.items;
 
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import com.direwolf20.buildinggadgets.common.building.BuildScheduler;
+import com.direwolf20.buildinggadgets.common.building.PlacementJob;
+import com.direwolf20.buildinggadgets.common.building.PlacementPlan;
+import com.direwolf20.buildinggadgets.common.building.RemovalListener;
+import com.direwolf20.buildinggadgets.common.inventory.MaterialIndex;
+import com.direwolf20.core.capability.TraitEnergyStorage;
 import com.direwolf20.core.items.EnergizedItem;
+import com.direwolf20.core.metrics.Metrics;
+import com.direwolf20.core.traits.Trait;
+import com.direwolf20.core.traits.TraitContainer;
+import net.minecraft.block.BlockState;
 import net.minecraft.client.util.ITooltipFlag;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.ItemUseContext;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.Hand;
 import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.TranslationTextComponent;
 import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.energy.CapabilityEnergy;
+import net.minecraftforge.energy.IEnergyStorage;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
 
 public abstract class Gadget extends EnergizedItem {
+    protected static final String KEY_NO_ENERGY = "message." + BuildingGadgets.MOD_ID + ".not_enough_energy";
+    protected static final String KEY_NO_MATERIALS = "message." + BuildingGadgets.MOD_ID + ".not_enough_materials";
+    protected static final String KEY_QUEUE_FULL = "message." + BuildingGadgets.MOD_ID + ".build.queue_full";
+
     public Gadget() {
         super(new Properties().group(BGItems.ITEM_GROUP).maxStackSize(1).maxDamage(0),
                 () -> 1000); //TODO add as constructor parameter and pass the config value down, as soon as a config is added
     }
 
+    @Override
+    protected TraitContainer.Builder onAttachTraits(TraitContainer.Builder builder) {
+        return super.onAttachTraits(builder)
+                .putTrait(Trait.ACTION_COST, () -> 50)
+                .putTrait(Trait.MAX_SIZE, () -> 16)
+                .putTrait(Trait.MAX_RANGE, () -> 32)
+                .putTrait(Trait.SILK_TOUCH, () -> false);
+    }
+
+    @Override
+    protected boolean useCompactShareTag() {
+        return true; //gadgets are held and therefore synced a lot
+    }
+
+    @Override
+    protected boolean deferChangeCount() {
+        return true; //a single action may transfer energy for every block
+    }
+
     @Override
     public void addInformation(ItemStack stack, @Nullable World world, List<ITextComponent> tipStack, ITooltipFlag flag) {
         super.addInformation(stack, world, tipStack, flag);
@@ -50,6 +92,69 @@ public abstract class Gadget extends EnergizedItem {
         return ActionResult.resultFail(player.getHeldItem(hand));
     }
 
+    /**
+     * @return The {@link TraitEnergyStorage} of the given stack, if it has one
+     */
+    protected static Optional<TraitEnergyStorage> getEnergyStorage(ItemStack stack) {
+        IEnergyStorage storage = stack.getCapability(CapabilityEnergy.ENERGY).orElse(null);
+        return storage instanceof TraitEnergyStorage ? Optional.of((TraitEnergyStorage) storage) : Optional.empty();
+    }
+
+    /**
+     * Reserves energy and materials for the given plan and queues a {@link PlacementJob} applying it into the given slot, which is
+     * released if nothing is queued. Creative players place for free, everyone else only as many blocks as they have materials for.
+     * Must be called on the server thread. The time this takes is recorded as {@link Metrics#PLACEMENT_SCHEDULING}.
+     * <p>
+     * Energy is taken from the gadget the owner holds in the given hand at the time of this call, which isn't necessarily the stack
+     * the action was started with if planning ran asynchronously.
+     *
+     * @param hand       The hand holding the gadget to pay with
+     * @param slot       The slot reserved in the owner's queue when the action was started
+     * @param canReplace Whether the state currently at a planned position may still be replaced
+     * @param listener   The listener to report replaced blocks to, if any
+     */
+    protected static void schedulePlacement(ServerWorld world, UUID owner, Hand hand, BuildScheduler.Slot slot, PlacementPlan plan,
+                                            Predicate<BlockState> canReplace, boolean creative, @Nullable RemovalListener listener) {
+        long start = Metrics.PLACEMENT_SCHEDULING.startTimer();
+        try {
+            reserveAndSubmit(world, owner, hand, slot, plan, canReplace, creative, listener);
+        } finally {
+            slot.release();
+            Metrics.PLACEMENT_SCHEDULING.stopTimer(start);
+        }
+    }
+
+    private static void reserveAndSubmit(ServerWorld world, UUID owner, Hand hand, BuildScheduler.Slot slot, PlacementPlan plan,
+                                         Predicate<BlockState> canReplace, boolean creative, @Nullable RemovalListener listener) {
+        ServerPlayerEntity player = world.getServer().getPlayerList().getPlayerByUUID(owner);
+        if (player == null || plan.isEmpty()) //logged out while planning or nothing to do
+            return;
+        if (creative) {
+            slot.submit(new PlacementJob(world, owner, plan, canReplace, null, null, listener));
+            return;
+        }
+
+        //the stack the action was started with may have been moved or copied while planning
+        TraitEnergyStorage energy = getEnergyStorage(player.getHeldItem(hand)).orElse(null);
+        if (energy == null)
+            return;
+        //only pay for what the plan actually places, as far as the materials go
+        Item item = plan.getState().getBlock().asItem();
+        MaterialIndex materials = MaterialIndex.get(player);
+        int count = Math.min(plan.size(), materials.count(item));
+        if (count == 0) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_NO_MATERIALS, plan.getState().getBlock().getNameTextComponent()), true);
+            return;
+        }
+        Optional<TraitEnergyStorage.Reservation> reservation = energy.reserveActions(count);
+        if (! reservation.isPresent()) {
+            player.sendStatusMessage(new TranslationTextComponent(KEY_NO_ENERGY, energy.estimateCost(count)), true);
+            return;
+        }
+        MaterialIndex.Reservation items = materials.reserve(item, count);
+        slot.submit(new PlacementJob(world, owner, plan, canReplace, reservation.get(), items, listener));
+    }
+
     public ItemStack get(PlayerEntity player) {
         ItemStack stack = player.getHeldItemMainhand();
         if( stack.getItem() instanceof Gadget )
@@ -0,0 +1,80 @@
+package com.direwolf20.buildinggadgets.common.template;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nullable;
+
+/**
+ * A fixed size array of unsigned ints, which all use the same number of bits. Values are packed into longs without spanning two
+ * words, so each long holds {@code 64 / bits} values and indexing needs no more than one word access.
+ */
+final class PackedIntArray {
+    private final int bits;
+    private final int size;
+    private final int valuesPerWord;
+    private final long mask;
+    private final long[] data;
+
+    PackedIntArray(int bits, int size) {
+        this(bits, size, null);
+    }
+
+    /**
+     * @param data The packed words as returned by {@link #getData()}, or null to start with all values being 0
+     * @throws IllegalArgumentException if data doesn't have the expected length
+     */
+    PackedIntArray(int bits, int size, @Nullable long[] data) {
+        Preconditions.checkArgument(bits > 0 && bits <= 32, "Bits per value must be in [1, 32], got %s", bits);
+        Preconditions.checkArgument(size >= 0, "Size must not be negative, got %s", size);
+        this.bits = bits;
+        this.size = size;
+        this.valuesPerWord = Long.SIZE / bits;
+        this.mask = (1L << bits) - 1;
+        int words = (int) (((long) size + valuesPerWord - 1) / valuesPerWord);
+        if (data == null)
+            data = new long[words];
+        Preconditions.checkArgument(data.length == words, "Expected %s words for %s values of %s bits, got %s", words, size, bits, data.length);
+        this.data = data;
+    }
+
+    /**
+     * @return The amount of bits needed to store the values [0, count)
+     */
+    static int bitsFor(int count) {
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(count - 1));
+    }
+
+    int get(int index) {
+        int word = index / valuesPerWord;
+        int shift = (index - word * valuesPerWord) * bits;
+        return (int) (data[word] >>> shift & mask);
+    }
+
+    void set(int index, int value) {
+        int word = index / valuesPerWord;
+        int shift = (index - word * valuesPerWord) * bits;
+        data[word] = data[word] & ~ (mask << shift) | (value & mask) << shift;
+    }
+
+    /**
+     * @return A copy of this array using the given amount of bits per value, which must be enough for all stored values
+     */
+    PackedIntArray resize(int newBits) {
+        PackedIntArray resized = new PackedIntArray(newBits, size);
+        for (int i = 0; i < size; i++)
+            resized.set(i, get(i));
+        return resized;
+    }
+
+    int getBits() {
+        return bits;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] getData() {
+        return data;
+    }
+}
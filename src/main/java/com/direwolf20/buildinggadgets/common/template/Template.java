@@ -0,0 +1,288 @@
+package com.direwolf20.buildinggadgets.common.template;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.NBTUtil;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraftforge.common.util.Constants.NBT;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable copy of a box of blocks, stored the way chunk sections store their blocks: every distinct state is put into a palette
+ * once, and each block is just an index into that palette, packed into a {@code long[]} with as few bits as the palette size requires.
+ * Block entity data is stored sparsely, keyed by the {@link BlockPos#pack(int, int, int) packed} position relative to the box's
+ * minimum corner. The box's size is the only header.
+ * <p>
+ * A 100x100x100 template with 20 distinct states thereby needs 5 bits per block and about 650 KB in total - plus its block entities -
+ * instead of a map entry per block. Blocks are ordered by y, z and x, like in chunk sections. Palette index 0 is always air.
+ * <p>
+ * Templates are created via {@link #capture(World, BlockPos, BlockPos)} or a {@link Builder}, and written to and read from NBT using
+ * the same layout.
+ */
+public final class Template {
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_PALETTE = "palette";
+    private static final String KEY_BLOCKS = "blocks";
+    private static final String KEY_TILE_ENTITIES = "tile_entities";
+    private static final String KEY_POS = "pos";
+    private static final String KEY_DATA = "data";
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final BlockState[] palette;
+    private final PackedIntArray blocks;
+    //keyed by packed relative position
+    private final ImmutableMap<Long, CompoundNBT> tileEntities;
+
+    private Template(int sizeX, int sizeY, int sizeZ, BlockState[] palette, PackedIntArray blocks, ImmutableMap<Long, CompoundNBT> tileEntities) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = palette;
+        this.blocks = blocks;
+        this.tileEntities = tileEntities;
+    }
+
+    public static Builder builder(int sizeX, int sizeY, int sizeZ) {
+        return new Builder(sizeX, sizeY, sizeZ);
+    }
+
+    /**
+     * Copies the given box. Must be called on the server thread. Chunks which aren't loaded are not loaded - their blocks are copied
+     * as air.
+     *
+     * @param world The world to copy from
+     * @param min   The minimum corner of the box to copy
+     * @param max   The maximum corner of the box to copy
+     * @return A template of the given box
+     */
+    public static Template capture(World world, BlockPos min, BlockPos max) {
+        Builder builder = builder(max.getX() - min.getX() + 1, max.getY() - min.getY() + 1, max.getZ() - min.getZ() + 1);
+        int minSectionY = Math.max(min.getY() >> 4, 0);
+        int maxSectionY = Math.min(max.getY() >> 4, 15);
+        for (int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for (int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                Chunk chunk = world.getChunkProvider().getChunk(cx, cz, false);
+                if (chunk == null)
+                    continue;
+                ChunkSection[] sections = chunk.getSections();
+                for (int sy = minSectionY; sy <= maxSectionY; sy++) {
+                    if (! ChunkSection.isEmpty(sections[sy])) //air is the builder's default
+                        copySection(builder, sections[sy], cx, sy, cz, min, max);
+                }
+                for (Entry<BlockPos, TileEntity> entry : chunk.getTileEntityMap().entrySet()) {
+                    BlockPos pos = entry.getKey();
+                    if (isInBox(pos, min, max))
+                        builder.setTileEntityData(pos.getX() - min.getX(), pos.getY() - min.getY(), pos.getZ() - min.getZ(),
+                                entry.getValue().write(new CompoundNBT()));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static void copySection(Builder builder, ChunkSection section, int cx, int sy, int cz, BlockPos min, BlockPos max) {
+        int minX = Math.max(min.getX(), cx << 4);
+        int minY = Math.max(min.getY(), sy << 4);
+        int minZ = Math.max(min.getZ(), cz << 4);
+        int maxX = Math.min(max.getX(), (cx << 4) + 15);
+        int maxY = Math.min(max.getY(), (sy << 4) + 15);
+        int maxZ = Math.min(max.getZ(), (cz << 4) + 15);
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BlockState state = section.getBlockState(x & 15, y & 15, z & 15);
+                    if (! state.isAir())
+                        builder.setBlockState(x - min.getX(), y - min.getY(), z - min.getZ(), state);
+                }
+            }
+        }
+    }
+
+    private static boolean isInBox(BlockPos pos, BlockPos min, BlockPos max) {
+        return pos.getX() >= min.getX() && pos.getY() >= min.getY() && pos.getZ() >= min.getZ()
+                && pos.getX() <= max.getX() && pos.getY() <= max.getY() && pos.getZ() <= max.getZ();
+    }
+
+    /**
+     * @param nbt A tag as written by {@link #write()}
+     * @return The template read from the given tag
+     * @throws IllegalArgumentException if the tag isn't a valid template
+     */
+    public static Template read(CompoundNBT nbt) {
+        int[] size = nbt.getIntArray(KEY_SIZE);
+        Preconditions.checkArgument(size.length == 3, "Template size must have 3 components, got %s", size.length);
+        int volume = checkVolume(size[0], size[1], size[2]);
+
+        ListNBT paletteNBT = nbt.getList(KEY_PALETTE, NBT.TAG_COMPOUND);
+        Preconditions.checkArgument(paletteNBT.size() > 0, "Template palette must not be empty");
+        BlockState[] palette = new BlockState[paletteNBT.size()];
+        for (int i = 0; i < palette.length; i++)
+            palette[i] = NBTUtil.readBlockState(paletteNBT.getCompound(i));
+        PackedIntArray blocks = new PackedIntArray(PackedIntArray.bitsFor(palette.length), volume, nbt.getLongArray(KEY_BLOCKS));
+
+        ImmutableMap.Builder<Long, CompoundNBT> tileEntities = ImmutableMap.builder();
+        ListNBT tileEntityNBT = nbt.getList(KEY_TILE_ENTITIES, NBT.TAG_COMPOUND);
+        for (int i = 0; i < tileEntityNBT.size(); i++) {
+            CompoundNBT entry = tileEntityNBT.getCompound(i);
+            tileEntities.put(entry.getLong(KEY_POS), entry.getCompound(KEY_DATA));
+        }
+        return new Template(size[0], size[1], size[2], palette, blocks, tileEntities.build());
+    }
+
+    private static int checkVolume(int sizeX, int sizeY, int sizeZ) {
+        Preconditions.checkArgument(sizeX > 0 && sizeY > 0 && sizeZ > 0, "Template size must be positive, got %sx%sx%s", sizeX, sizeY, sizeZ);
+        long volume = (long) sizeX * sizeY * sizeZ;
+        Preconditions.checkArgument(volume <= Integer.MAX_VALUE, "Template of %sx%sx%s is too large", sizeX, sizeY, sizeZ);
+        return (int) volume;
+    }
+
+    public CompoundNBT write() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putIntArray(KEY_SIZE, new int[]{sizeX, sizeY, sizeZ});
+        ListNBT paletteNBT = new ListNBT();
+        for (BlockState state : palette)
+            paletteNBT.add(NBTUtil.writeBlockState(state));
+        nbt.put(KEY_PALETTE, paletteNBT);
+        //the amount of bits per block follows from the palette's size
+        nbt.putLongArray(KEY_BLOCKS, blocks.getData());
+        ListNBT tileEntityNBT = new ListNBT();
+        for (Entry<Long, CompoundNBT> entry : tileEntities.entrySet()) {
+            CompoundNBT tileEntity = new CompoundNBT();
+            tileEntity.putLong(KEY_POS, entry.getKey());
+            tileEntity.put(KEY_DATA, entry.getValue());
+            tileEntityNBT.add(tileEntity);
+        }
+        nbt.put(KEY_TILE_ENTITIES, tileEntityNBT);
+        return nbt;
+    }
+
+    private int index(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ)
+            throw new IndexOutOfBoundsException("Position " + x + ", " + y + ", " + z + " is outside of " + sizeX + "x" + sizeY + "x" + sizeZ);
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    /**
+     * @param x The x coordinate, relative to the minimum corner
+     * @param y The y coordinate, relative to the minimum corner
+     * @param z The z coordinate, relative to the minimum corner
+     * @return The state at the given position
+     */
+    public BlockState getBlockState(int x, int y, int z) {
+        int id = blocks.get(index(x, y, z));
+        return id < palette.length ? palette[id] : AIR;
+    }
+
+    /**
+     * @return The data of the block entity at the given relative position, if there is one. The tag must not be modified.
+     */
+    @Nullable
+    public CompoundNBT getTileEntityData(int x, int y, int z) {
+        index(x, y, z);
+        return tileEntities.get(BlockPos.pack(x, y, z));
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    public int getTileEntityCount() {
+        return tileEntities.size();
+    }
+
+    /**
+     * Collects the blocks of a {@link Template}. The palette grows as new states are set, widening the packed indices whenever the
+     * current amount of bits doesn't suffice anymore. Every block starts out as air.
+     */
+    public static final class Builder {
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final List<BlockState> palette;
+        //block states are singletons
+        private final Map<BlockState, Integer> ids;
+        private PackedIntArray blocks;
+        private final Map<Long, CompoundNBT> tileEntities;
+
+        private Builder(int sizeX, int sizeY, int sizeZ) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.palette = new ArrayList<>();
+            this.ids = new IdentityHashMap<>();
+            this.blocks = new PackedIntArray(1, checkVolume(sizeX, sizeY, sizeZ));
+            this.tileEntities = new HashMap<>();
+            palette.add(AIR);
+            ids.put(AIR, 0);
+        }
+
+        public Builder setBlockState(int x, int y, int z, BlockState state) {
+            Integer id = ids.get(state);
+            if (id == null) {
+                id = palette.size();
+                palette.add(state);
+                ids.put(state, id);
+                int bits = PackedIntArray.bitsFor(palette.size());
+                if (bits > blocks.getBits())
+                    blocks = blocks.resize(bits);
+            }
+            blocks.set(index(x, y, z), id);
+            return this;
+        }
+
+        /**
+         * @param nbt The block entity's data, or null to remove it
+         */
+        public Builder setTileEntityData(int x, int y, int z, @Nullable CompoundNBT nbt) {
+            index(x, y, z);
+            long pos = BlockPos.pack(x, y, z);
+            if (nbt != null)
+                tileEntities.put(pos, nbt.copy());
+            else
+                tileEntities.remove(pos);
+            return this;
+        }
+
+        private int index(int x, int y, int z) {
+            if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ)
+                throw new IndexOutOfBoundsException("Position " + x + ", " + y + ", " + z + " is outside of " + sizeX + "x" + sizeY + "x" + sizeZ);
+            return (y * sizeZ + z) * sizeX + x;
+        }
+
+        public Template build() {
+            //the builder may still be used afterwards, so the template needs its own copy
+            long[] data = blocks.getData().clone();
+            return new Template(sizeX, sizeY, sizeZ, palette.toArray(new BlockState[0]),
+                    new PackedIntArray(blocks.getBits(), blocks.size(), data), ImmutableMap.copyOf(tileEntities));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.direwolf20.buildinggadgets.common.template;
+
+import com.direwolf20.buildinggadgets.BuildingGadgets;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.storage.WorldSavedData;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the server's {@link Template templates}, saved with the overworld. Items only need to refer to a template by its id, so
+ * large templates are never synced as part of an item stack.
+ */
+public final class TemplateStore extends WorldSavedData {
+    private static final String NAME = BuildingGadgets.MOD_ID + "_templates";
+    private final Map<UUID, Template> templates;
+
+    private TemplateStore() {
+        super(NAME);
+        this.templates = new HashMap<>();
+    }
+
+    public static TemplateStore get(MinecraftServer server) {
+        return server.getWorld(DimensionType.OVERWORLD).getSavedData().getOrCreate(TemplateStore::new, NAME);
+    }
+
+    /**
+     * @return The id to retrieve the given template with
+     */
+    public UUID put(Template template) {
+        UUID id = UUID.randomUUID();
+        templates.put(id, template);
+        markDirty();
+        return id;
+    }
+
+    public Optional<Template> get(UUID id) {
+        return Optional.ofNullable(templates.get(id));
+    }
+
+    @Nullable
+    public Template remove(UUID id) {
+        Template removed = templates.remove(id);
+        if (removed != null)
+            markDirty();
+        return removed;
+    }
+
+    @Override
+    public void read(CompoundNBT nbt) {
+        templates.clear();
+        for (String key : nbt.keySet()) {
+            try {
+                templates.put(UUID.fromString(key), Template.read(nbt.getCompound(key)));
+            } catch (IllegalArgumentException e) {
+                BuildingGadgets.LOG.warn("Discarding invalid template {}", key, e);
+            }
+        }
+    }
+
+    @Override
+    public CompoundNBT write(CompoundNBT nbt) {
+        for (Map.Entry<UUID, Template> entry : templates.entrySet())
+            nbt.put(entry.getKey().toString(), entry.getValue().write());
+        return nbt;
+    }
+}
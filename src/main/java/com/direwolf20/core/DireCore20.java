@@ -2,6 +2,7 @@ package com.direwolf20.core;
 
 import com.direwolf20.core.capability.PropertyContainerCapability;
 import com.direwolf20.core.capability.TraitContainerCapability;
+import com.direwolf20.core.items.ShareTagHandshake;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
@@ -16,6 +17,7 @@ public final class DireCore20 {
     public DireCore20() {
         IEventBus bus = FMLJavaModLoadingContext.get().getModEventBus();
         bus.addListener(this::setup);
+        ShareTagHandshake.register();
     }
 
     private void setup(final FMLCommonSetupEvent event) {
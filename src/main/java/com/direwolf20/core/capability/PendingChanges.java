@@ -0,0 +1,53 @@
+package com.direwolf20.core.capability;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.TickEvent.Phase;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the {@link PropertyTraitCapabilityProvider Providers} which defer their change count updates and were modified during
+ * the current tick. The change count of each of them is bumped once at the end of the tick, or earlier if the Provider is serialized
+ * or {@link #flush()} is called.
+ * <p>
+ * Pending Providers are tracked per thread, as client and server (and therefore their stacks) live on different threads in single
+ * player. Only the server and client thread are flushed automatically - modifications made on any other thread are only applied
+ * once the stack is serialized or {@link #flush()} is called from that thread.
+ */
+@EventBusSubscriber
+public enum PendingChanges {
+    ;
+    private static final ThreadLocal<List<PropertyTraitCapabilityProvider>> PENDING = ThreadLocal.withInitial(ArrayList::new);
+
+    static void schedule(PropertyTraitCapabilityProvider provider) {
+        PENDING.get().add(provider);
+    }
+
+    /**
+     * Applies all change count updates, which are pending on the current thread. Call this before copying the tag of a stack whose
+     * caps may have been modified during this tick.
+     */
+    public static void flush() {
+        List<PropertyTraitCapabilityProvider> pending = PENDING.get();
+        if (pending.isEmpty())
+            return;
+        for (int i = 0; i < pending.size(); i++)
+            pending.get(i).applyPendingChange();
+        pending.clear();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == Phase.END)
+            flush();
+    }
+
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == Phase.END)
+            flush();
+    }
+}
@@ -1,5 +1,6 @@
 package com.direwolf20.core.capability;
 
+import com.direwolf20.core.metrics.Metrics;
 import com.direwolf20.core.properties.IPropertyContainer;
 import com.direwolf20.core.properties.ModificationPropertyContainer;
 import com.direwolf20.core.traits.ITraitContainer;
@@ -29,8 +30,20 @@ import javax.annotation.Nullable;
  * Subclasses who intend on implementing similar syncing mechanisms, may just call {@link #onValueModified()} any time a value was modified.
  * The {@link ItemStack#getTag() Stack-Tag} will be modified as described above.
  * <p>
+ * If constructed with {@code deferChangeCount} set to true, {@link #onValueModified()} only records that a value was modified and the
+ * change count is bumped once per tick by {@link PendingChanges} - or as soon as this Provider is serialized. This avoids rewriting the
+ * stack tag for every single energy transfer. A modified stack still compares unequal to it's previous state, but vanilla's container
+ * change detection may only notice this one tick later.
+ * <p>
  * Notice that this {@link ICapabilityProvider} implements {@link INBTSerializable} and therefore enables the resulting caps to
  * be saved to the regular cap storage.
+ * <p>
+ * Deserialisation is lazy: {@link #deserializeNBT(CompoundNBT)} only keeps a reference to the given nbt, which is decoded the first time
+ * one of the containers is accessed - be it via {@link #getCapability(Capability, Direction)} resolution or directly. If nothing accessed
+ * the containers until the next call to {@link #serializeNBT()}, the untouched nbt is returned as is. Once the containers were accessed,
+ * they may be cached by whoever accessed them, so any later deserialisation is decoded right away. The retained nbt is never modified
+ * by this class. Subclasses must therefore implement their serialisation via {@link #writeNBT(CompoundNBT)} and {@link #readNBT(CompoundNBT)}
+ * and access their own state only after calling {@link #decodePending()}.
  */
 public class PropertyTraitCapabilityProvider implements ICapabilityProvider, INBTSerializable<CompoundNBT> {
     //the key is longer then the actual value... I'm tempted to use just 'c' or even the empty string as key for this
@@ -41,11 +54,23 @@ public class PropertyTraitCapabilityProvider implements ICapabilityProvider, INB
     private final ModificationTraitContainer traitContainer;
     private final ModificationPropertyContainer propertyContainer;
     private final ItemStack stack;
+    private final boolean deferChangeCount;
+    private boolean changePending;
+    //the nbt which still needs to be decoded, null if there is none
+    @Nullable
+    private CompoundNBT pendingNBT;
+    //whether the containers were accessed, in which case they may have been handed out and cached - by the LazyOptionals at least
+    private boolean accessed;
 
     private final LazyOptional<ITraitContainer> traitContainerOpt;
     private final LazyOptional<IPropertyContainer> propertyContainerOpt;
 
     public PropertyTraitCapabilityProvider(ItemStack stack, ITraitContainer traitContainer, IPropertyContainer propertyContainer) {
+        this(stack, traitContainer, propertyContainer, false);
+    }
+
+    public PropertyTraitCapabilityProvider(ItemStack stack, ITraitContainer traitContainer, IPropertyContainer propertyContainer, boolean deferChangeCount) {
+        this.deferChangeCount = deferChangeCount;
         this.traitContainer = new ModificationTraitContainer(traitContainer, (u, b) -> onValueModified());
         this.traitContainerOpt = LazyOptional.of(this::getTraitContainer);
         this.propertyContainer = new ModificationPropertyContainer(propertyContainer, (p, v) -> onValueModified());
@@ -55,11 +80,13 @@ public class PropertyTraitCapabilityProvider implements ICapabilityProvider, INB
 
     @Nonnull
     public ITraitContainer getTraitContainer() {
+        decodePending();
         return traitContainer;
     }
 
     @Nonnull
     public IPropertyContainer getPropertyContainer() {
+        decodePending();
         return propertyContainer;
     }
 
@@ -77,16 +104,63 @@ public class PropertyTraitCapabilityProvider implements ICapabilityProvider, INB
 
     @Override
     public CompoundNBT serializeNBT() {
-        CompoundNBT nbt = new CompoundNBT();
-
-        nbt.put(KEY_TRAITS, traitContainer.serializeNBT());
-        nbt.put(KEY_PROPERTIES, propertyContainer.serializeNBT());
+        applyPendingChange();
+        if (pendingNBT != null) { //nothing was accessed, so nothing could have changed
+            Metrics.NBT_SERIALIZATIONS_UNTOUCHED.increment();
+            return pendingNBT;
+        }
 
+        CompoundNBT nbt = new CompoundNBT();
+        writeNBT(nbt);
         return nbt;
     }
 
     @Override
     public void deserializeNBT(CompoundNBT nbt) {
+        //whoever holds the containers already won't decode anything anymore, so the nbt has to be applied right away
+        if (accessed) {
+            pendingNBT = null;
+            Metrics.NBT_DESERIALIZATIONS_DECODED.increment();
+            readNBT(nbt);
+            return;
+        }
+        Metrics.NBT_DESERIALIZATIONS_DEFERRED.increment();
+        this.pendingNBT = nbt;
+    }
+
+    /**
+     * Decodes the nbt passed to {@link #deserializeNBT(CompoundNBT)}, if this hasn't already happened. Subclasses must call this
+     * before accessing any state which is deserialized in {@link #readNBT(CompoundNBT)}.
+     */
+    protected final void decodePending() {
+        accessed = true;
+        if (pendingNBT != null) {
+            CompoundNBT nbt = pendingNBT;
+            pendingNBT = null;
+            Metrics.NBT_DESERIALIZATIONS_DECODED.increment();
+            readNBT(nbt);
+        }
+    }
+
+    /**
+     * Writes the state of this provider to the given nbt. Subclasses adding their own caps should override this and call super.
+     * The trait and property sections are cached by the wrapping {@link ModificationTraitContainer} and {@link ModificationPropertyContainer},
+     * so only sections which changed since the last call are re-encoded.
+     *
+     * @param nbt The {@link CompoundNBT} to write to
+     */
+    protected void writeNBT(CompoundNBT nbt) {
+        nbt.put(KEY_TRAITS, traitContainer.serializeNBT());
+        nbt.put(KEY_PROPERTIES, propertyContainer.serializeNBT());
+    }
+
+    /**
+     * Reads the state of this provider from the given nbt, once it is first needed. Subclasses adding their own caps should
+     * override this and call super.
+     *
+     * @param nbt The {@link CompoundNBT} to read from. Must not be modified.
+     */
+    protected void readNBT(CompoundNBT nbt) {
         if (nbt.contains(KEY_TRAITS, NBT.TAG_COMPOUND))
             traitContainer.deserializeNBT(nbt.getCompound(KEY_TRAITS));
 
@@ -95,6 +169,22 @@ public class PropertyTraitCapabilityProvider implements ICapabilityProvider, INB
     }
 
     protected void onValueModified() {
+        if (! deferChangeCount)
+            bumpChangeCount();
+        else if (! changePending) {
+            changePending = true;
+            PendingChanges.schedule(this);
+        }
+    }
+
+    void applyPendingChange() {
+        if (changePending) {
+            changePending = false;
+            bumpChangeCount();
+        }
+    }
+
+    private void bumpChangeCount() {
         CompoundNBT nbt = stack.getOrCreateTag();
         nbt.putByte(KEY_CHANGE_COUNT, (byte) (nbt.getByte(KEY_CHANGE_COUNT) + 1));
     }
@@ -1,7 +1,9 @@
 package com.direwolf20.core.capability;
 
 import com.direwolf20.core.DireCore20;
+import com.direwolf20.core.metrics.Metrics;
 import com.direwolf20.core.traits.ITraitContainer;
+import com.direwolf20.core.traits.IntTrait;
 import com.direwolf20.core.traits.Trait;
 import com.google.common.base.Preconditions;
 import net.minecraft.nbt.INBT;
@@ -10,7 +12,9 @@ import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.energy.IEnergyStorage;
 
+import javax.annotation.Nullable;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 /**
@@ -20,22 +24,33 @@ import java.util.function.Consumer;
  * {@link Trait#MAX_EXTRACT}. If a Trait is not present in the container, the represented value will default to 0.
  * <p>
  * This class implements {@link INBTSerializable<INBT>}, even though it only ever serializes {@link IntNBT} instances. This is to avoid future
- * breaking changes if we happen to change the nbt format.
+ * breaking changes if we happen to change the nbt format. The serialized nbt is cached until the stored energy changes.
+ * <p>
+ * Operations which consume energy for a lot of blocks should {@link #reserveActions(int) reserve} it up front, instead of calling
+ * {@link #extractEnergy(int, boolean)} once per block. See {@link Reservation} for details.
  */
 public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializable<INBT> {
-    private final Trait<Integer> maxEnergyStored;
-    private final Trait<Integer> maxExtract;
-    private final Trait<Integer> maxReceive;
+    private final IntTrait maxEnergyStored;
+    private final IntTrait maxExtract;
+    private final IntTrait maxReceive;
+    private final IntTrait actionCost;
     private final Consumer<TraitEnergyStorage> onChangeCallback;
     private final ITraitContainer traitContainer;
+    //excludes energy held by open reservations
     private int energyStored;
+    //the energy held by open reservations, which will at most be refunded
+    private int reserved;
+    //null if it needs to be re-serialized
+    @Nullable
+    private INBT serialized;
 
-    private TraitEnergyStorage(ITraitContainer traitContainer, Consumer<TraitEnergyStorage> onChangeCallback, Trait<Integer> maxEnergy, Trait<Integer> maxReceive, Trait<Integer> maxExtract, int energyStored) {
+    private TraitEnergyStorage(ITraitContainer traitContainer, Consumer<TraitEnergyStorage> onChangeCallback, IntTrait maxEnergy, IntTrait maxReceive, IntTrait maxExtract, IntTrait actionCost, int energyStored) {
         this.traitContainer = traitContainer;
         this.onChangeCallback = onChangeCallback;
         this.maxEnergyStored = maxEnergy;
         this.maxReceive = maxReceive;
         this.maxExtract = maxExtract;
+        this.actionCost = actionCost;
         this.energyStored = energyStored;
     }
 
@@ -63,18 +78,59 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
     }
 
     public int getMaxExtract() {
-        return traitContainer.getTrait(maxExtract).orElse(0);
+        return traitContainer.getInt(maxExtract, 0);
     }
 
     public int getMaxReceive() {
-        return traitContainer.getTrait(maxReceive).orElse(0);
+        return traitContainer.getInt(maxReceive, 0);
+    }
+
+    /**
+     * @return The energy required for a single action, as defined by the action cost {@link Trait}
+     */
+    public int getActionCost() {
+        return traitContainer.getInt(actionCost, 0);
+    }
+
+    /**
+     * @param actionCount The number of actions to be performed, for example the number of blocks to place
+     * @return The energy required for the given number of actions. This is a long, as it may exceed {@link Integer#MAX_VALUE}.
+     */
+    public long estimateCost(int actionCount) {
+        return (long) getActionCost() * actionCount;
+    }
+
+    /**
+     * Reserves the energy required for the given number of actions, as estimated by {@link #estimateCost(int)}. Use this to reject
+     * operations which can't be paid for, before doing any work.
+     *
+     * @param actionCount The number of actions to reserve energy for
+     * @return The reservation or {@link Optional#empty()} if there isn't enough energy available
+     */
+    public Optional<Reservation> reserveActions(int actionCount) {
+        Preconditions.checkArgument(actionCount >= 0, "Cannot reserve a negative amount of actions!");
+        int cost = getActionCost();
+        long total = (long) cost * actionCount;
+        return total <= getEnergyStored() ? Optional.of(new Reservation((int) total, cost)) : Optional.empty();
+    }
+
+    /**
+     * Reserves the given amount of energy. {@link Reservation#consumeAction()} will consume a single unit of energy on the result.
+     *
+     * @param amount The amount of energy to reserve
+     * @return The reservation or {@link Optional#empty()} if there isn't enough energy available
+     */
+    public Optional<Reservation> reserveEnergy(int amount) {
+        Preconditions.checkArgument(amount >= 0, "Cannot reserve a negative amount of energy!");
+        return amount <= getEnergyStored() ? Optional.of(new Reservation(amount, 1)) : Optional.empty();
     }
 
     @Override
     public int receiveEnergy(int maxReceive, boolean simulate) {
         maxReceive = MathHelper.clamp(maxReceive, 0, getMaxReceive());
         int energy = getEnergyStored();
-        int maxEnergy = getMaxEnergyStored();
+        //leave room for refunding open reservations
+        int maxEnergy = getMaxEnergyStored() - reserved;
         int newEnergy = Math.min(energy + maxReceive, maxEnergy);
 
         updateEnergy(simulate, newEnergy);
@@ -93,6 +149,11 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
         return newEnergy - energy;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Energy held by open {@link Reservation Reservations} is not included.
+     */
     @Override
     public int getEnergyStored() {
         return energyStored;
@@ -100,7 +161,7 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
 
     @Override
     public int getMaxEnergyStored() {
-        return traitContainer.getTrait(maxEnergyStored).orElse(0);
+        return traitContainer.getInt(maxEnergyStored, 0);
     }
 
     @Override
@@ -115,22 +176,133 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
 
     @Override
     public INBT serializeNBT() {
-        return IntNBT.valueOf(energyStored);
+        if (serialized == null)
+            serialized = IntNBT.valueOf(energyStored);
+        return serialized;
     }
 
     @Override
     public void deserializeNBT(INBT nbt) {
-        if (nbt instanceof IntNBT)
+        if (nbt instanceof IntNBT) {
             energyStored = ((IntNBT) nbt).getInt();
-        else
+            serialized = nbt;
+        } else
             DireCore20.LOG.error("Assumed nbt data to be an instance of {}. This was not the case and therefore data could not be deserialized from {}.",
                     IntNBT.class.getName(), nbt);
     }
 
     private void updateEnergy(boolean simulate, int newEnergy) {
-        if (! simulate) {
-            energyStored = newEnergy;
-            onChangeCallback.accept(this);
+        if (! simulate)
+            setEnergyStored(newEnergy);
+    }
+
+    private void setEnergyStored(int newEnergy) {
+        Metrics.ENERGY_TRANSACTIONS.increment();
+        if (newEnergy != energyStored)
+            serialized = null;
+        energyStored = newEnergy;
+        onChangeCallback.accept(this);
+    }
+
+    /**
+     * A handle on energy taken from a {@link TraitEnergyStorage}, obtained via {@link #reserveActions(int)} or
+     * {@link #reserveEnergy(int)}. The reserved energy is removed from the storage right away - it is neither reported by
+     * {@link #getEnergyStored()} nor serialized while the reservation is open, so copies of the owning stack can't be used to spend it
+     * twice. Consuming from it is plain arithmetic on the handle - the storage is only updated (and it's change callback only fired)
+     * again when the reservation is {@link #commit() committed}, which refunds whatever wasn't consumed. {@link #release()} refunds
+     * everything. The storage keeps enough room to take back any refund.
+     * <p>
+     * Refunds go to the storage which was reserved from. If the owning stack was copied in the meantime, the copy doesn't receive them.
+     * Reservations don't respect {@link #getMaxExtract()}, as that limits single transfers and not batched operations.
+     * Like the storage itself, Reservations are not thread safe.
+     */
+    public final class Reservation {
+        private final int amount;
+        private final int costPerAction;
+        private int remaining;
+        private boolean closed;
+
+        private Reservation(int amount, int costPerAction) {
+            this.amount = amount;
+            this.costPerAction = costPerAction;
+            this.remaining = amount;
+            reserved += amount;
+            if (amount > 0)
+                setEnergyStored(energyStored - amount);
+        }
+
+        /**
+         * @return Whether the reservation still covers a single action, without consuming it
+         */
+        public boolean coversAction() {
+            return costPerAction <= remaining;
+        }
+
+        /**
+         * @return Whether the reservation still covered a single action, which is then consumed
+         */
+        public boolean consumeAction() {
+            return consume(costPerAction);
+        }
+
+        /**
+         * @param count The amount of actions to consume
+         * @return Whether the reservation still covered all of them. If not, nothing is consumed.
+         */
+        public boolean consumeActions(int count) {
+            long total = (long) costPerAction * count;
+            return total <= remaining && consume((int) total);
+        }
+
+        /**
+         * @param amount The energy to consume
+         * @return Whether there was enough energy left in this reservation. If not, nothing is consumed.
+         */
+        public boolean consume(int amount) {
+            Preconditions.checkState(! closed, "Cannot consume from a closed reservation!");
+            if (amount > remaining)
+                return false;
+            remaining -= amount;
+            return true;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public int getConsumed() {
+            return amount - remaining;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Refunds the energy which wasn't consumed. Does nothing if the reservation was already closed.
+         *
+         * @return The energy which was consumed
+         */
+        public int commit() {
+            if (closed)
+                return 0;
+            close(remaining);
+            return getConsumed();
+        }
+
+        /**
+         * Refunds all reserved energy, regardless of what was consumed. Does nothing if the reservation was already closed.
+         */
+        public void release() {
+            if (! closed)
+                close(amount);
+        }
+
+        private void close(int refund) {
+            closed = true;
+            reserved -= amount;
+            if (refund > 0)
+                setEnergyStored(energyStored + refund);
         }
     }
 
@@ -139,9 +311,10 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
      * the parameters, if they are needed.
      */
     public static final class Builder {
-        private Trait<Integer> maxEnergy;
-        private Trait<Integer> maxExtract;
-        private Trait<Integer> maxReceive;
+        private IntTrait maxEnergy;
+        private IntTrait maxExtract;
+        private IntTrait maxReceive;
+        private IntTrait actionCost;
         private Consumer<TraitEnergyStorage> onChangeCallback;
         private ITraitContainer traitContainer;
 
@@ -151,6 +324,7 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
             this.maxEnergy = Trait.MAX_ENERGY;
             this.maxReceive = Trait.MAX_RECEIVE;
             this.maxExtract = Trait.MAX_EXTRACT;
+            this.actionCost = Trait.ACTION_COST;
         }
 
         public Builder traitContainer(ITraitContainer traitContainer) {
@@ -164,23 +338,28 @@ public final class TraitEnergyStorage implements IEnergyStorage, INBTSerializabl
             return this;
         }
 
-        public Builder maxEnergy(Trait<Integer> maxEnergy) {
+        public Builder maxEnergy(IntTrait maxEnergy) {
             this.maxEnergy = maxEnergy;
             return this;
         }
 
-        public Builder maxReceive(Trait<Integer> maxReceive) {
+        public Builder maxReceive(IntTrait maxReceive) {
             this.maxReceive = maxReceive;
             return this;
         }
 
-        public Builder maxExtract(Trait<Integer> maxExtract) {
+        public Builder maxExtract(IntTrait maxExtract) {
             this.maxExtract = maxExtract;
             return this;
         }
 
+        public Builder actionCost(IntTrait actionCost) {
+            this.actionCost = actionCost;
+            return this;
+        }
+
         public TraitEnergyStorage build() {
-            return new TraitEnergyStorage(traitContainer, onChangeCallback, maxEnergy, maxReceive, maxExtract, 0);
+            return new TraitEnergyStorage(traitContainer, onChangeCallback, maxEnergy, maxReceive, maxExtract, actionCost, 0);
         }
     }
 }
@@ -0,0 +1,198 @@
+package com.direwolf20.core.collect;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of {@link BlockPos#toLong() packed block positions}, bucketed by the 16x16x16 chunk section they're in. Each touched section
+ * costs a 512 byte bitset, so dense selections - like flood fills or filled boxes - take well below a bit per covered block. Sparse
+ * selections are better served by a {@link LongHashSet}.
+ * <p>
+ * Lookups remember the last section, so walking positions with spatial locality mostly skips the section lookup. Iteration visits
+ * one section after another, which is the order in which chunk sections are best modified.
+ * <p>
+ * {@link #clear()} zeroes the bitsets and keeps them in a pool for reuse, so an instance can serve as scratch space for the next
+ * operation. Not thread safe.
+ */
+public final class ChunkedLongSet {
+    private static final int WORDS_PER_SECTION = 16 * 16 * 16 / Long.SIZE;
+    //bitsets kept beyond this are dropped on clear, 256 sections are 128 KB
+    private static final int MAX_POOLED = 256;
+    //a null bucket marks a free slot, as every section key is valid
+    private long[] sectionKeys;
+    private long[][] buckets;
+    private int mask;
+    private int maxFill;
+    private int sectionCount;
+    private int size;
+    private final ArrayDeque<long[]> pool;
+    //the bucket of the last accessed section or null
+    private long lastKey;
+    private long[] lastBucket;
+
+    public ChunkedLongSet() {
+        this(4);
+    }
+
+    /**
+     * @param expectedSections The number of sections expected to be touched
+     */
+    public ChunkedLongSet(int expectedSections) {
+        this.pool = new ArrayDeque<>();
+        allocate(HashCommon.tableSize(expectedSections));
+    }
+
+    private void allocate(int tableSize) {
+        sectionKeys = new long[tableSize];
+        buckets = new long[tableSize][];
+        mask = tableSize - 1;
+        maxFill = HashCommon.maxFill(tableSize);
+    }
+
+    private static long sectionKey(long pos) {
+        return SectionPos.asLong(BlockPos.unpackX(pos) >> 4, BlockPos.unpackY(pos) >> 4, BlockPos.unpackZ(pos) >> 4);
+    }
+
+    private static int indexInSection(long pos) {
+        return (BlockPos.unpackY(pos) & 15) << 8 | (BlockPos.unpackZ(pos) & 15) << 4 | (BlockPos.unpackX(pos) & 15);
+    }
+
+    private long[] getBucket(long key, boolean create) {
+        if (lastBucket != null && lastKey == key)
+            return lastBucket;
+        int i = HashCommon.mix(key) & mask;
+        long[] bucket;
+        while ((bucket = buckets[i]) != null) {
+            if (sectionKeys[i] == key)
+                return remember(key, bucket);
+            i = (i + 1) & mask;
+        }
+        if (! create)
+            return null;
+        bucket = pool.isEmpty() ? new long[WORDS_PER_SECTION] : pool.pop();
+        sectionKeys[i] = key;
+        buckets[i] = bucket;
+        if (++ sectionCount > maxFill)
+            rehash(sectionKeys.length * 2);
+        return remember(key, bucket);
+    }
+
+    private long[] remember(long key, long[] bucket) {
+        lastKey = key;
+        lastBucket = bucket;
+        return bucket;
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = sectionKeys;
+        long[][] oldBuckets = buckets;
+        allocate(tableSize);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldBuckets[j] == null)
+                continue;
+            int i = HashCommon.mix(oldKeys[j]) & mask;
+            while (buckets[i] != null)
+                i = (i + 1) & mask;
+            sectionKeys[i] = oldKeys[j];
+            buckets[i] = oldBuckets[j];
+        }
+    }
+
+    /**
+     * @return Whether the position was added, false if it was already present
+     */
+    public boolean add(long pos) {
+        long[] bucket = getBucket(sectionKey(pos), true);
+        int index = indexInSection(pos);
+        long bit = 1L << index;
+        long word = bucket[index >>> 6];
+        if ((word & bit) != 0)
+            return false;
+        bucket[index >>> 6] = word | bit;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long pos) {
+        long[] bucket = getBucket(sectionKey(pos), false);
+        if (bucket == null)
+            return false;
+        int index = indexInSection(pos);
+        return (bucket[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Removes the position. The section's bitset is kept until the next {@link #clear()}, even if it becomes empty.
+     *
+     * @return Whether the position was removed, false if it wasn't present
+     */
+    public boolean remove(long pos) {
+        long[] bucket = getBucket(sectionKey(pos), false);
+        if (bucket == null)
+            return false;
+        int index = indexInSection(pos);
+        long bit = 1L << index;
+        long word = bucket[index >>> 6];
+        if ((word & bit) == 0)
+            return false;
+        bucket[index >>> 6] = word & ~ bit;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all positions. Bitsets are zeroed and pooled for reuse, the section table keeps it's size.
+     */
+    public void clear() {
+        if (sectionCount == 0)
+            return;
+        for (int i = 0; i < buckets.length; i++) {
+            long[] bucket = buckets[i];
+            if (bucket == null)
+                continue;
+            buckets[i] = null;
+            if (pool.size() < MAX_POOLED) {
+                Arrays.fill(bucket, 0);
+                pool.push(bucket);
+            }
+        }
+        lastBucket = null;
+        sectionCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Passes every position to the given action, one section after another. Within a section, positions are ordered by y, z and x.
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < buckets.length; i++) {
+            long[] bucket = buckets[i];
+            if (bucket == null)
+                continue;
+            long key = sectionKeys[i];
+            int baseX = SectionPos.extractX(key) << 4;
+            int baseY = SectionPos.extractY(key) << 4;
+            int baseZ = SectionPos.extractZ(key) << 4;
+            for (int w = 0; w < WORDS_PER_SECTION; w++) {
+                long word = bucket[w];
+                while (word != 0) {
+                    int index = w << 6 | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    action.accept(BlockPos.pack(baseX | (index & 15), baseY | (index >>> 8), baseZ | ((index >>> 4) & 15)));
+                }
+            }
+        }
+    }
+}
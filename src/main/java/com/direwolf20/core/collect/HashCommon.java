@@ -0,0 +1,43 @@
+package com.direwolf20.core.collect;
+
+/**
+ * Hashing and sizing helpers shared by the open addressing collections of this package.
+ */
+final class HashCommon {
+    static final float LOAD_FACTOR = 0.5f;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private HashCommon() {}
+
+    /**
+     * Spreads the bits of a key, so that packed positions - which only differ in a few bits - don't collide in the low bits used for
+     * indexing.
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * @return The power of two table size needed to hold the given number of elements without exceeding {@link #LOAD_FACTOR}
+     */
+    static int tableSize(int expectedSize) {
+        long needed = Math.max(2, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (needed >= MAX_TABLE_SIZE)
+            return MAX_TABLE_SIZE;
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static int maxFill(int tableSize) {
+        return Math.min(tableSize - 1, (int) (tableSize * LOAD_FACTOR));
+    }
+
+    /**
+     * Whether the element stored at slot, which hashes to home, may be moved back to the freed slot hole by backward shift deletion.
+     */
+    static boolean canShift(int hole, int slot, int home) {
+        //the element may be moved iff home is cyclically not within (hole, slot]
+        return hole <= slot ? home <= hole || home > slot : home <= hole && home > slot;
+    }
+}
@@ -0,0 +1,213 @@
+package com.direwolf20.core.collect;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive longs, for example {@link net.minecraft.util.math.BlockPos#toLong() packed block positions}. It uses open
+ * addressing with linear probing over a single {@code long[]}, which costs 16 bytes per element at the default load factor instead of
+ * the 50+ bytes of a {@code HashSet<BlockPos>} - and never allocates on lookups.
+ * <p>
+ * {@link #clear()} keeps the allocated table, so that an instance can be reused as scratch space for the next operation. Call
+ * {@link #trim()} to release memory after an unusually large operation. Not thread safe, iteration order is unspecified.
+ */
+public final class LongHashSet {
+    //0 marks free slots, whether 0 itself is contained is tracked separately
+    private long[] keys;
+    private boolean containsZero;
+    private int mask;
+    private int maxFill;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(HashCommon.tableSize(expectedSize));
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        mask = tableSize - 1;
+        maxFill = HashCommon.maxFill(tableSize);
+    }
+
+    /**
+     * @return Whether the value was added, false if it was already present
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero)
+                return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        long[] keys = this.keys;
+        int i = HashCommon.mix(value) & mask;
+        long current;
+        while ((current = keys[i]) != 0) {
+            if (current == value)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = value;
+        if (++ size > maxFill)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0)
+            return containsZero;
+        long[] keys = this.keys;
+        int i = HashCommon.mix(value) & mask;
+        long current;
+        while ((current = keys[i]) != 0) {
+            if (current == value)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the value was removed, false if it wasn't present
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (! containsZero)
+                return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int i = HashCommon.mix(value) & mask;
+        long current;
+        while ((current = keys[i]) != 0) {
+            if (current == value) {
+                size--;
+                shiftKeys(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    //backward shift deletion - keeps probe sequences intact without tombstones
+    private void shiftKeys(int hole) {
+        long[] keys = this.keys;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long current = keys[slot];
+            if (current == 0) {
+                keys[hole] = 0;
+                return;
+            }
+            if (HashCommon.canShift(hole, slot, HashCommon.mix(current) & mask)) {
+                keys[hole] = current;
+                hole = slot;
+            }
+        }
+    }
+
+    private void rehash(int tableSize) {
+        long[] old = keys;
+        allocate(tableSize);
+        long[] keys = this.keys;
+        for (long value : old) {
+            if (value == 0)
+                continue;
+            int i = HashCommon.mix(value) & mask;
+            while (keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = value;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values, but keeps the allocated table for reuse.
+     */
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Shrinks the table to the smallest size able to hold the current values.
+     */
+    public void trim() {
+        int tableSize = HashCommon.tableSize(size);
+        if (tableSize < keys.length)
+            rehash(tableSize);
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero)
+            action.accept(0);
+        for (long value : keys) {
+            if (value != 0)
+                action.accept(value);
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int index = containsZero ? 1 : 0; //result[0] is already 0
+        for (long value : keys) {
+            if (value != 0)
+                result[index++] = value;
+        }
+        return result;
+    }
+
+    /**
+     * @return An iterator over all values. The set must not be modified while iterating.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private boolean zeroPending = containsZero;
+            private int index = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == 0)
+                    from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return zeroPending || index < keys.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (zeroPending) {
+                    zeroPending = false;
+                    return 0;
+                }
+                if (index >= keys.length)
+                    throw new NoSuchElementException();
+                long value = keys[index];
+                index = advance(index + 1);
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package com.direwolf20.core.collect;
+
+@FunctionalInterface
+public interface LongIntConsumer {
+    void accept(long key, int value);
+}
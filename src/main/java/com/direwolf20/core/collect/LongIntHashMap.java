@@ -0,0 +1,198 @@
+package com.direwolf20.core.collect;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive longs to primitive ints, for example from {@link net.minecraft.util.math.BlockPos#toLong() packed block positions}
+ * to {@link net.minecraft.block.Block#getStateId(net.minecraft.block.BlockState) block state ids}. Like {@link LongHashSet} it uses
+ * open addressing with linear probing over parallel primitive arrays, so neither keys nor values are boxed.
+ * <p>
+ * {@link #clear()} keeps the allocated tables for reuse, {@link #trim()} releases them. Not thread safe, iteration order is unspecified.
+ */
+public final class LongIntHashMap {
+    //0 marks free slots, the mapping of key 0 is tracked separately
+    private long[] keys;
+    private int[] values;
+    private boolean containsZero;
+    private int zeroValue;
+    private int mask;
+    private int maxFill;
+    private int size;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(HashCommon.tableSize(expectedSize));
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        maxFill = HashCommon.maxFill(tableSize);
+    }
+
+    private int find(long key) {
+        long[] keys = this.keys;
+        int i = HashCommon.mix(key) & mask;
+        long current;
+        while ((current = keys[i]) != 0) {
+            if (current == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        return - (i + 1);
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : find(key) >= 0;
+    }
+
+    public int getOrDefault(long key, int defaultValue) {
+        if (key == 0)
+            return containsZero ? zeroValue : defaultValue;
+        int i = find(key);
+        return i >= 0 ? values[i] : defaultValue;
+    }
+
+    /**
+     * @return Whether the key was newly added, false if an existing mapping was replaced
+     */
+    public boolean put(long key, int value) {
+        if (key == 0) {
+            zeroValue = value;
+            if (containsZero)
+                return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int i = find(key);
+        if (i >= 0) {
+            values[i] = value;
+            return false;
+        }
+        insertAt(- i - 1, key, value);
+        return true;
+    }
+
+    /**
+     * Adds the given amount to the value mapped to key, treating absent keys as mapped to 0.
+     *
+     * @return The new value
+     */
+    public int addTo(long key, int amount) {
+        if (key == 0) {
+            if (! containsZero) {
+                containsZero = true;
+                zeroValue = 0;
+                size++;
+            }
+            return zeroValue += amount;
+        }
+        int i = find(key);
+        if (i >= 0)
+            return values[i] += amount;
+        insertAt(- i - 1, key, amount);
+        return amount;
+    }
+
+    private void insertAt(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++ size > maxFill)
+            rehash(keys.length * 2);
+    }
+
+    /**
+     * @return Whether a mapping was removed
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (! containsZero)
+                return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int i = find(key);
+        if (i < 0)
+            return false;
+        size--;
+        shiftKeys(i);
+        return true;
+    }
+
+    private void shiftKeys(int hole) {
+        long[] keys = this.keys;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long current = keys[slot];
+            if (current == 0) {
+                keys[hole] = 0;
+                return;
+            }
+            if (HashCommon.canShift(hole, slot, HashCommon.mix(current) & mask)) {
+                keys[hole] = current;
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(tableSize);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0)
+                continue;
+            int i = HashCommon.mix(key) & mask;
+            while (keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all mappings, but keeps the allocated tables for reuse.
+     */
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Shrinks the tables to the smallest size able to hold the current mappings.
+     */
+    public void trim() {
+        int tableSize = HashCommon.tableSize(size);
+        if (tableSize < keys.length)
+            rehash(tableSize);
+    }
+
+    public void forEach(LongIntConsumer action) {
+        if (containsZero)
+            action.accept(0, zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0)
+                action.accept(keys[i], values[i]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.direwolf20.core.collect;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first in, first out queue of primitive longs, backed by a ring buffer which doubles in size when full. Intended as the work list
+ * of breadth first searches over {@link net.minecraft.util.math.BlockPos#toLong() packed block positions}, where a
+ * {@code Queue<BlockPos>} would allocate per visited position.
+ * <p>
+ * {@link #clear()} keeps the buffer for reuse. Not thread safe.
+ */
+public final class LongQueue {
+    private long[] elements;
+    private int mask;
+    //index of the first element
+    private int head;
+    private int size;
+
+    public LongQueue() {
+        this(16);
+    }
+
+    public LongQueue(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) - 1) << 1;
+        this.elements = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void enqueue(long value) {
+        if (size == elements.length)
+            grow();
+        elements[(head + size) & mask] = value;
+        size++;
+    }
+
+    /**
+     * @return The first element, which is removed
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public long dequeue() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        long value = elements[head];
+        head = (head + 1) & mask;
+        size--;
+        return value;
+    }
+
+    /**
+     * @return The first element, without removing it
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public long peek() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return elements[head];
+    }
+
+    private void grow() {
+        long[] grown = new long[elements.length * 2];
+        //unwrap, so that the first element ends up at index 0
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+        elements = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all elements, but keeps the buffer for reuse.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @return The elements in queue order, without removing them
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, result, 0, firstPart);
+        System.arraycopy(elements, 0, result, firstPart, size - firstPart);
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ import com.direwolf20.core.capability.PropertyContainerCapability;
 import com.direwolf20.core.capability.PropertyTraitCapabilityProvider;
 import com.direwolf20.core.capability.TraitContainerCapability;
 import com.direwolf20.core.capability.TraitEnergyStorage;
+import com.direwolf20.core.metrics.Metrics;
 import com.direwolf20.core.properties.IPropertyContainer;
 import com.direwolf20.core.properties.PropertyContainer;
 import com.direwolf20.core.traits.ITraitContainer;
@@ -15,6 +16,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
 import net.minecraft.util.Direction;
+import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.ICapabilityProvider;
 import net.minecraftforge.common.util.Constants.NBT;
@@ -22,6 +24,8 @@ import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.energy.CapabilityEnergy;
 import net.minecraftforge.energy.IEnergyStorage;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.common.thread.EffectiveSide;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -43,7 +47,15 @@ public abstract class EnergizedItem extends Item {
     private static final String KEY_ENERGY = "energy";
     private static final String KEY_PROPERTIES = "properties";
     private static final String KEY_TRAITS = "traits";
+    private static final String KEY_COMPACT = "compact_caps";
     private final Supplier<Integer> maxEnergyDefault;
+    //lazily built, as they are defined by overridable Methods. Racy single check: the layouts are immutable and equivalent
+    @Nullable
+    private TraitContainer.Layout traitLayout;
+    @Nullable
+    private PropertyContainer.Layout propertyLayout;
+    @Nullable
+    private ShareTagCodec shareTagCodec;
 
     public EnergizedItem(Properties properties, Supplier<Integer> maxEnergyDefault) {
         super(properties);
@@ -55,13 +67,14 @@ public abstract class EnergizedItem extends Item {
      * <p>
      * Notice that this class expects every {@link ICapabilityProvider} returned by this Method to implement
      * {@link INBTSerializable<CompoundNBT>}. Furthermore this Method is responsible for attaching Properties
-     * and Traits.
+     * and Traits. The default {@link EnergyCapabilityProvider} defers decoding the given nbt until the caps are first accessed.
      */
     @Override
     @SuppressWarnings("unchecked")
     public final ICapabilityProvider initCapabilities(ItemStack stack, @Nullable CompoundNBT nbt) {
-        ITraitContainer traitContainer = onAttachTraits(TraitContainer.builder()).build();
-        IPropertyContainer propertyContainer = onAttachProperties(PropertyContainer.builder()).build();
+        Metrics.CAPABILITY_PROVIDERS_CREATED.increment();
+        ITraitContainer traitContainer = getTraitLayout().createContainer();
+        IPropertyContainer propertyContainer = getPropertyLayout().createContainer();
         ICapabilityProvider provider = createCapabilities(stack, traitContainer, propertyContainer);
 
         if (nbt != null) //The contract states that it will be INBTSerializable<CompoundNBT> - safe cast
@@ -70,6 +83,51 @@ public abstract class EnergizedItem extends Item {
         return provider;
     }
 
+    /**
+     * @return The {@link TraitContainer.Layout} shared by all stacks of this Item, built from {@link #onAttachTraits(Builder)}
+     */
+    protected final TraitContainer.Layout getTraitLayout() {
+        TraitContainer.Layout layout = traitLayout;
+        if (layout == null) {
+            layout = onAttachTraits(TraitContainer.builder()).buildLayout();
+            traitLayout = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * @return The {@link PropertyContainer.Layout} shared by all stacks of this Item, built from {@link #onAttachProperties(PropertyContainer.Builder)}
+     */
+    protected final PropertyContainer.Layout getPropertyLayout() {
+        PropertyContainer.Layout layout = propertyLayout;
+        if (layout == null) {
+            layout = onAttachProperties(PropertyContainer.builder()).buildLayout();
+            propertyLayout = layout;
+        }
+        return layout;
+    }
+
+    ShareTagCodec getShareTagCodec() {
+        ShareTagCodec codec = shareTagCodec;
+        if (codec == null) {
+            codec = new ShareTagCodec(getPropertyLayout());
+            shareTagCodec = codec;
+        }
+        return codec;
+    }
+
+    /**
+     * Override this to return true, if the caps of this Item should be synced using a compact binary encoding instead of nbt. This
+     * encoding does not contain any of the Property or Upgrade names and is therefore considerably smaller, but relies on client and
+     * server agreeing on the {@link #getPropertyLayout() property layout} and the upgrade registry ids. The server therefore only
+     * uses it while all clients confirmed matching layouts via {@link ShareTagHandshake}, and falls back to nbt otherwise.
+     *
+     * @return whether {@link #getShareTag(ItemStack)} should use the compact encoding. Defaults to false.
+     */
+    protected boolean useCompactShareTag() {
+        return false;
+    }
+
     /**
      * Notice that {@link #readShareTag(ItemStack, CompoundNBT)} and {@link #getShareTag(ItemStack)} assumes that the
      * {@link IEnergyStorage} implementation returned by the cap provider, returned from this Method is an instance of
@@ -83,11 +141,22 @@ public abstract class EnergizedItem extends Item {
      * immediately after this Method returns!
      */
     protected ICapabilityProvider createCapabilities(ItemStack stack, ITraitContainer traitContainer, IPropertyContainer propertyContainer) {
-        return new EnergyCapabilityProvider(stack, traitContainer, propertyContainer);
+        return new EnergyCapabilityProvider(stack, traitContainer, propertyContainer, deferChangeCount());
     }
 
     /**
-     * Override this Method to add your own Properties to the resulting Gadget.
+     * Override this to return true, if modifications to the caps of this Item should only bump the stack's change count once per
+     * tick, instead of on every modification. See {@link PropertyTraitCapabilityProvider} for details.
+     *
+     * @return whether the {@link EnergyCapabilityProvider} should defer change count updates. Defaults to false.
+     */
+    protected boolean deferChangeCount() {
+        return false;
+    }
+
+    /**
+     * Override this Method to add your own Properties to the resulting Gadget. It is only called once per Item, the resulting
+     * {@link PropertyContainer.Layout} is shared by all of it's stacks.
      *
      * @param builder The {@link PropertyContainer.Builder} used for adding Properties
      * @return the passed in builder instance, to allow for Method chaining
@@ -98,26 +167,44 @@ public abstract class EnergizedItem extends Item {
 
     /**
      * Override this Method to add your own Traits to the resulting Gadget. By default {@link Trait#MAX_ENERGY} will be added
-     * using the default supplier passed to the constructor, whilst the {@link Trait#MAX_EXTRACT}, {@link Trait#MAX_RECEIVE} will
+     * as a {@link Builder#putVolatileTrait(Trait, Supplier) volatile} trait using the default supplier passed to the constructor, whilst the {@link Trait#MAX_EXTRACT}, {@link Trait#MAX_RECEIVE} will
      * be set to a supplier returning {@link Integer#MAX_VALUE}, as per @Direwolf20's request.
      * If you want to use different Traits for your {@link IEnergyStorage} (for example because you want to use different upgrades),
      * just don't call super and adapt the {@link EnergyCapabilityProvider} accordingly.
+     * <p>
+     * This Method is only called once per Item, the resulting {@link TraitContainer.Layout} is shared by all of it's stacks.
      *
      * @param builder The {@link PropertyContainer.Builder} used for adding Properties
      * @return the passed in builder instance, to allow for Method chaining
      */
     protected TraitContainer.Builder onAttachTraits(TraitContainer.Builder builder) {
         return builder
-                .putTrait(Trait.MAX_ENERGY, maxEnergyDefault)
+                .putVolatileTrait(Trait.MAX_ENERGY, maxEnergyDefault)
                 .putTrait(Trait.MAX_EXTRACT, () -> Integer.MAX_VALUE)
                 .putTrait(Trait.MAX_RECEIVE, () -> Integer.MAX_VALUE);
     }
 
+    /**
+     * Share tags are written on the netty thread, which can't apply change counts deferred on the server thread. With
+     * {@link #deferChangeCount()} the change count in the synced tag may therefore lag behind by up to one tick - the caps themselves
+     * are always encoded with their current values.
+     */
     @Nullable
     @Override
     public CompoundNBT getShareTag(ItemStack stack) {
         CompoundNBT nbt = stack.getOrCreateTag().copy();
 
+        if (useCompactShareTag() && ShareTagHandshake.isCompactAllowed()) {
+            byte[] data = encodeCompact(stack);
+            if (data != null) {
+                Metrics.SHARE_TAGS_COMPACT.increment();
+                Metrics.SHARE_TAG_COMPACT_BYTES.add(data.length);
+                nbt.putByteArray(KEY_COMPACT, data);
+                return nbt;
+            }
+        }
+        Metrics.SHARE_TAGS_NBT.increment();
+
         stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY)
                 .ifPresent(container -> nbt.put(KEY_PROPERTIES, container.serializeNBT()));
 
@@ -137,6 +224,13 @@ public abstract class EnergizedItem extends Item {
     @Override
     public void readShareTag(ItemStack stack, @Nullable CompoundNBT nbt) {
         if (nbt != null) {
+            if (nbt.contains(KEY_COMPACT, NBT.TAG_BYTE_ARRAY)) {
+                //the server falls back to nbt once it learns about the failure
+                if (! decodeCompact(stack, nbt.getByteArray(KEY_COMPACT)) && EffectiveSide.get().isClient())
+                    DistExecutor.runWhenOn(Dist.CLIENT, () -> ShareTagHandshake::onDecodeFailed);
+                nbt.remove(KEY_COMPACT);
+            }
+
             if (nbt.contains(KEY_PROPERTIES, NBT.TAG_COMPOUND))
                 stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY)
                         .ifPresent(container ->  {
@@ -163,6 +257,26 @@ public abstract class EnergizedItem extends Item {
         stack.setTag(nbt);
     }
 
+    @Nullable
+    private byte[] encodeCompact(ItemStack stack) {
+        IPropertyContainer properties = stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY).orElse(null);
+        ITraitContainer traits = stack.getCapability(TraitContainerCapability.TRAIT_CONTAINER_CAPABILITY).orElse(null);
+        if (properties == null || traits == null)
+            return null;
+        return getShareTagCodec().encode(properties, traits, stack.getCapability(CapabilityEnergy.ENERGY).orElse(null));
+    }
+
+    //returns whether the data could be decoded, or there were no caps to decode it into
+    @SuppressWarnings("unchecked") //we know the implementation class
+    private boolean decodeCompact(ItemStack stack, byte[] data) {
+        IPropertyContainer properties = stack.getCapability(PropertyContainerCapability.PROPERTY_CONTAINER_CAPABILITY).orElse(null);
+        ITraitContainer traits = stack.getCapability(TraitContainerCapability.TRAIT_CONTAINER_CAPABILITY).orElse(null);
+        if (properties == null || traits == null)
+            return true;
+        IEnergyStorage energy = stack.getCapability(CapabilityEnergy.ENERGY).orElse(null);
+        return getShareTagCodec().decode(data, properties, traits, (INBTSerializable<INBT>) energy);
+    }
+
     @Override
     public boolean isDamageable() {
         return false;
@@ -192,13 +306,18 @@ public abstract class EnergizedItem extends Item {
         private final LazyOptional<IEnergyStorage> energyStorageOpt;
 
         public EnergyCapabilityProvider(ItemStack stack, ITraitContainer traitContainer, IPropertyContainer propertyContainer) {
-            super(stack, traitContainer, propertyContainer);
+            this(stack, traitContainer, propertyContainer, false);
+        }
+
+        public EnergyCapabilityProvider(ItemStack stack, ITraitContainer traitContainer, IPropertyContainer propertyContainer, boolean deferChangeCount) {
+            super(stack, traitContainer, propertyContainer, deferChangeCount);
             energyStorage = TraitEnergyStorage.createWithDefaultTraits(traitContainer, this::onValueModified);
             energyStorageOpt = LazyOptional.of(this::getEnergyStorage);
         }
 
         @Nonnull
         public TraitEnergyStorage getEnergyStorage() {
+            decodePending();
             return energyStorage;
         }
 
@@ -212,19 +331,17 @@ public abstract class EnergizedItem extends Item {
         }
 
         @Override
-        public CompoundNBT serializeNBT() {
-            CompoundNBT nbt = super.serializeNBT();
-            nbt.put(KEY_ENERGY, getEnergyStorage().serializeNBT());
-
-            return nbt;
+        protected void writeNBT(CompoundNBT nbt) {
+            super.writeNBT(nbt);
+            nbt.put(KEY_ENERGY, energyStorage.serializeNBT());
         }
 
         @Override
-        public void deserializeNBT(CompoundNBT nbt) {
-            super.deserializeNBT(nbt);
+        protected void readNBT(CompoundNBT nbt) {
+            super.readNBT(nbt);
 
             if (nbt.contains(KEY_ENERGY))
-                getEnergyStorage().deserializeNBT(nbt.get(KEY_ENERGY));
+                energyStorage.deserializeNBT(nbt.get(KEY_ENERGY));
         }
     }
 }
@@ -0,0 +1,191 @@
+package com.direwolf20.core.items;
+
+import com.direwolf20.core.DireCore20;
+import com.direwolf20.core.properties.IPropertyContainer;
+import com.direwolf20.core.properties.Property;
+import com.direwolf20.core.properties.PropertyContainer;
+import com.direwolf20.core.registry.Registries;
+import com.direwolf20.core.registry.UpgradeLookup;
+import com.direwolf20.core.traits.ITraitContainer;
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import io.netty.buffer.Unpooled;
+import net.minecraft.nbt.*;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.common.util.Constants.NBT;
+import net.minecraftforge.common.util.INBTSerializable;
+import net.minecraftforge.energy.IEnergyStorage;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A compact binary encoding of the caps of an {@link EnergizedItem}, which is used for it's share tag if
+ * {@link EnergizedItem#useCompactShareTag()} returns true.
+ * <p>
+ * Instead of keying everything by name, {@link Property Properties} are written by their index in the Item's
+ * {@link PropertyContainer.Layout}, upgrades by their integer registry id and tier and energy as a single varint. Property values
+ * still pass through the Property's serializer, but primitive tags are written without any nbt framing. As indices are only
+ * meaningful if both sides agree on the layout, every payload starts with a fingerprint of the layout it was written with.
+ * Payloads with a different fingerprint are rejected by {@link #decode(byte[], IPropertyContainer, ITraitContainer, INBTSerializable)},
+ * just like malformed ones. {@link ShareTagHandshake} makes sure the server only sends compact payloads to matching clients.
+ */
+final class ShareTagCodec {
+    //bump this whenever the format changes, it is part of the fingerprint
+    private static final int FORMAT_VERSION = 1;
+    private static final String KEY_VALUE = "v";
+    private static final int MAX_STRING_LENGTH = 32767;
+    private final PropertyContainer.Layout propertyLayout;
+    private final int fingerprint;
+
+    ShareTagCodec(PropertyContainer.Layout propertyLayout) {
+        this.propertyLayout = propertyLayout;
+        int hash = FORMAT_VERSION;
+        for (int i = 0; i < propertyLayout.size(); i++)
+            hash = 31 * hash + propertyLayout.getProperty(i).getName().hashCode();
+        this.fingerprint = hash;
+    }
+
+    int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the encoded caps, or null if they could not be encoded - in which case the nbt share tag should be used
+     */
+    @Nullable
+    byte[] encode(IPropertyContainer properties, ITraitContainer traits, @Nullable IEnergyStorage energy) {
+        UpgradeLookup lookup = Registries.getUpgradeLookup();
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        buffer.writeInt(fingerprint);
+
+        for (int i = 0; i < propertyLayout.size(); i++) {
+            Property<?> property = propertyLayout.getProperty(i);
+            Optional<?> value = properties.getProperty(property);
+            if (value.isPresent())
+                writeTag(buffer, property.serializeValue(value.get()));
+            else
+                buffer.writeByte(NBT.TAG_END);
+        }
+
+        buffer.writeVarInt(traits.listTiers().size());
+        for (UpgradeStack tier : traits.listTiers()) {
+            int id = lookup.getID(tier.getUpgrade());
+            if (id < 0)
+                return null;
+            buffer.writeVarInt(id);
+            buffer.writeVarInt(tier.getLevel());
+        }
+
+        buffer.writeBoolean(energy != null);
+        if (energy != null)
+            buffer.writeVarInt(energy.getEnergyStored());
+
+        byte[] data = new byte[buffer.readableBytes()];
+        buffer.readBytes(data);
+        return data;
+    }
+
+    /**
+     * @return whether the data could be decoded. If not, none of the given caps will have been modified.
+     */
+    boolean decode(byte[] data, IPropertyContainer properties, ITraitContainer traits, @Nullable INBTSerializable<INBT> energy) {
+        PacketBuffer buffer = new PacketBuffer(Unpooled.wrappedBuffer(data));
+        CompoundNBT propertyNBT = new CompoundNBT();
+        List<UpgradeStack> tiers;
+        Integer energyStored;
+        try {
+            int remoteFingerprint = buffer.readInt();
+            if (remoteFingerprint != fingerprint) {
+                DireCore20.LOG.warn("Received compact share tag for a different property layout ({} instead of {}). This is most likely a version mismatch - ignoring it.",
+                        remoteFingerprint, fingerprint);
+                return false;
+            }
+
+            //go through the regular deserialisation, so that the container's contract stays intact
+            for (int i = 0; i < propertyLayout.size(); i++) {
+                INBT value = readTag(buffer);
+                if (value != null)
+                    propertyNBT.put(propertyLayout.getProperty(i).getName(), value);
+            }
+            tiers = readTiers(buffer);
+            energyStored = buffer.readBoolean() ? buffer.readVarInt() : null;
+        } catch (RuntimeException e) { //netty reports truncated or otherwise malformed data with unchecked exceptions
+            DireCore20.LOG.warn("Received malformed compact share tag - ignoring it.", e);
+            return false;
+        }
+
+        properties.deserializeNBT(propertyNBT);
+        //only touch upgrades which actually changed, instead of rebuilding all trait values
+        for (UpgradeStack installed : new ArrayList<>(traits.listTiers())) {
+            if (! tiers.contains(installed))
+                traits.removeUpgrade(installed);
+        }
+        for (UpgradeStack tier : tiers)
+            traits.installUpgrade(tier);
+        if (energy != null && energyStored != null)
+            energy.deserializeNBT(IntNBT.valueOf(energyStored));
+        return true;
+    }
+
+    private static List<UpgradeStack> readTiers(PacketBuffer buffer) {
+        UpgradeLookup lookup = Registries.getUpgradeLookup();
+        int tierCount = buffer.readVarInt();
+        List<UpgradeStack> tiers = new ArrayList<>(Math.min(tierCount, buffer.readableBytes()));
+        for (int i = 0; i < tierCount; i++) {
+            int id = buffer.readVarInt();
+            int level = buffer.readVarInt();
+            //not falling back to the registry, which would turn unknown ids into its default
+            Upgrade upgrade = lookup.getValue(id);
+            if (upgrade != null) //invalid levels throw, rejecting the whole payload
+                tiers.add(UpgradeStack.of(upgrade, level));
+            else
+                DireCore20.LOG.warn("Dropping unknown upgrade {} from compact share tag.", id);
+        }
+        return tiers;
+    }
+
+    private static void writeTag(PacketBuffer buffer, INBT tag) {
+        buffer.writeByte(tag.getId());
+        switch (tag.getId()) {
+            case NBT.TAG_BYTE:
+                buffer.writeByte(((ByteNBT) tag).getByte());
+                break;
+            case NBT.TAG_INT:
+                buffer.writeVarInt(((IntNBT) tag).getInt());
+                break;
+            case NBT.TAG_FLOAT:
+                buffer.writeFloat(((FloatNBT) tag).getFloat());
+                break;
+            case NBT.TAG_STRING:
+                buffer.writeString(((StringNBT) tag).getString());
+                break;
+            default: //everything else is rare enough to just fall back to nbt
+                CompoundNBT wrapper = new CompoundNBT();
+                wrapper.put(KEY_VALUE, tag);
+                buffer.writeCompoundTag(wrapper);
+        }
+    }
+
+    @Nullable
+    private static INBT readTag(PacketBuffer buffer) {
+        byte id = buffer.readByte();
+        switch (id) {
+            case NBT.TAG_END:
+                return null;
+            case NBT.TAG_BYTE:
+                return ByteNBT.valueOf(buffer.readByte());
+            case NBT.TAG_INT:
+                return IntNBT.valueOf(buffer.readVarInt());
+            case NBT.TAG_FLOAT:
+                return FloatNBT.valueOf(buffer.readFloat());
+            case NBT.TAG_STRING:
+                return StringNBT.valueOf(buffer.readString(MAX_STRING_LENGTH));
+            default:
+                CompoundNBT wrapper = buffer.readCompoundTag();
+                return wrapper != null ? wrapper.get(KEY_VALUE) : null;
+        }
+    }
+}
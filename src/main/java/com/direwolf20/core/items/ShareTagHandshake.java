@@ -0,0 +1,164 @@
+package com.direwolf20.core.items;
+
+import com.direwolf20.core.DireCore20;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.network.NetworkEvent;
+import net.minecraftforge.fml.network.NetworkRegistry;
+import net.minecraftforge.fml.network.simple.SimpleChannel;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether {@link EnergizedItem EnergizedItems} may use their {@link ShareTagCodec compact share tag}. The compact encoding is
+ * only understood by clients with the same property layouts as the server, but {@link EnergizedItem#getShareTag(net.minecraft.item.ItemStack)}
+ * doesn't know which player it encodes for. Therefore every client reports a fingerprint of its layouts on login, and the server
+ * only uses the compact encoding while every online player reported a matching one. Everything else - players which haven't
+ * reported yet, clients without this channel or with different layouts - gets the regular nbt share tag.
+ * <p>
+ * A client which fails to decode a compact payload anyway reports so. The server then falls back to nbt for the rest of that
+ * player's session and resends the player's open container.
+ * <p>
+ * The server side state is only accessed on the server thread, except for {@link #isCompactAllowed()}. It is never set on a client
+ * of a remote server, so clients always send nbt.
+ */
+@EventBusSubscriber
+public final class ShareTagHandshake {
+    private static final String PROTOCOL_VERSION = "1";
+    private static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(new ResourceLocation(DireCore20.MOD_ID, "share_tags"),
+            () -> PROTOCOL_VERSION, ShareTagHandshake::isCompatible, ShareTagHandshake::isCompatible);
+    private static final Set<UUID> ONLINE = new HashSet<>();
+    private static final Set<UUID> CONFIRMED = new HashSet<>();
+    //players which failed to decode a compact payload
+    private static final Set<UUID> REJECTED = new HashSet<>();
+    private static volatile boolean compactAllowed;
+    //client side: whether a decode failure was already reported during this connection
+    private static final AtomicBoolean FAILURE_REPORTED = new AtomicBoolean();
+
+    private ShareTagHandshake() {}
+
+    public static void register() {
+        CHANNEL.registerMessage(0, LayoutMessage.class, LayoutMessage::encode, LayoutMessage::decode, ShareTagHandshake::handle);
+    }
+
+    //the channel is optional on both sides, without it everything is synced as nbt
+    private static boolean isCompatible(String version) {
+        return PROTOCOL_VERSION.equals(version) || NetworkRegistry.ABSENT.equals(version) || NetworkRegistry.ACCEPTVANILLA.equals(version);
+    }
+
+    /**
+     * @return whether share tags may currently be encoded compactly
+     */
+    static boolean isCompactAllowed() {
+        return compactAllowed;
+    }
+
+    /**
+     * Called on the client if a compact payload couldn't be decoded. Reports the failure to the server once per connection.
+     */
+    static void onDecodeFailed() {
+        if (! FAILURE_REPORTED.getAndSet(true))
+            CHANNEL.sendToServer(new LayoutMessage(getLayoutFingerprint(), true));
+    }
+
+    private static int getLayoutFingerprint() {
+        int hash = 0;
+        for (Item item : ForgeRegistries.ITEMS) {
+            if (item instanceof EnergizedItem && ((EnergizedItem) item).useCompactShareTag())
+                hash += 31 * String.valueOf(item.getRegistryName()).hashCode() + ((EnergizedItem) item).getShareTagCodec().getFingerprint();
+        }
+        return hash;
+    }
+
+    private static void handle(LayoutMessage message, Supplier<NetworkEvent.Context> context) {
+        ServerPlayerEntity player = context.get().getSender();
+        context.get().enqueueWork(() -> {
+            if (player == null || ! ONLINE.contains(player.getUniqueID()))
+                return;
+            UUID id = player.getUniqueID();
+            if (message.decodeFailed || message.fingerprint != getLayoutFingerprint()) {
+                REJECTED.add(id);
+                if (CONFIRMED.remove(id)) {
+                    DireCore20.LOG.warn("Player {} could not decode compact share tags, falling back to nbt.", id);
+                    update();
+                    player.sendContainerToPlayer(player.openContainer);
+                }
+            } else if (! REJECTED.contains(id)) {
+                CONFIRMED.add(id);
+                update();
+            }
+        });
+        context.get().setPacketHandled(true);
+    }
+
+    private static void update() {
+        compactAllowed = ! ONLINE.isEmpty() && CONFIRMED.size() == ONLINE.size();
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        ONLINE.add(event.getPlayer().getUniqueID());
+        update();
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        UUID id = event.getPlayer().getUniqueID();
+        ONLINE.remove(id);
+        CONFIRMED.remove(id);
+        REJECTED.remove(id);
+        update();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        ONLINE.clear();
+        CONFIRMED.clear();
+        REJECTED.clear();
+        update();
+    }
+
+    @EventBusSubscriber(value = Dist.CLIENT)
+    public static final class ClientEvents {
+        private ClientEvents() {}
+
+        @SubscribeEvent
+        public static void onLoggedIn(ClientPlayerNetworkEvent.LoggedInEvent event) {
+            FAILURE_REPORTED.set(false);
+            if (CHANNEL.isRemotePresent(event.getNetworkManager()))
+                CHANNEL.sendToServer(new LayoutMessage(getLayoutFingerprint(), false));
+        }
+    }
+
+    private static final class LayoutMessage {
+        private final int fingerprint;
+        private final boolean decodeFailed;
+
+        private LayoutMessage(int fingerprint, boolean decodeFailed) {
+            this.fingerprint = fingerprint;
+            this.decodeFailed = decodeFailed;
+        }
+
+        private static void encode(LayoutMessage message, PacketBuffer buffer) {
+            buffer.writeInt(message.fingerprint);
+            buffer.writeBoolean(message.decodeFailed);
+        }
+
+        private static LayoutMessage decode(PacketBuffer buffer) {
+            return new LayoutMessage(buffer.readInt(), buffer.readBoolean());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.direwolf20.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named, thread safe counter backed by a {@link LongAdder}. Increments are ignored while {@link Metrics#isEnabled() metrics are disabled}.
+ */
+public final class Counter {
+    private final String name;
+    private final LongAdder value;
+
+    Counter(String name) {
+        this.name = name;
+        this.value = new LongAdder();
+    }
+
+    public void increment() {
+        if (Metrics.isEnabled())
+            value.increment();
+    }
+
+    public void add(long amount) {
+        if (Metrics.isEnabled())
+            value.add(amount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
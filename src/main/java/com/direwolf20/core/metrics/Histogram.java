@@ -0,0 +1,105 @@
+package com.direwolf20.core.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A named, thread safe histogram of nanosecond timings with power of two buckets. Only every {@link Metrics#getSampleRate() n-th}
+ * timing is recorded (chosen at random) and nothing is recorded while {@link Metrics#isEnabled() metrics are disabled}.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * long start = histogram.startTimer();
+ * doWork();
+ * histogram.stopTimer(start);
+ * }</pre>
+ */
+public final class Histogram {
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    //bucket i contains all values in [2^(i-1), 2^i)
+    private static final int BUCKET_COUNT = 64;
+    private final String name;
+    private final LongAdder[] buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    Histogram(String name) {
+        this.name = name;
+        this.buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets[i] = new LongAdder();
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * @return the start time to pass to {@link #stopTimer(long)}. May be a marker value if this timing is not sampled.
+     */
+    public long startTimer() {
+        if (! Metrics.isEnabled())
+            return NOT_SAMPLED;
+        int rate = Metrics.getSampleRate();
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0)
+            return NOT_SAMPLED;
+        return System.nanoTime();
+    }
+
+    public void stopTimer(long start) {
+        if (start != NOT_SAMPLED)
+            record(System.nanoTime() - start);
+    }
+
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long c = getCount();
+        return c > 0 ? (double) sum.sum() / c : 0;
+    }
+
+    /**
+     * @param quantile The quantile in [0, 1]
+     * @return an upper bound for the given quantile, precise up to a factor of 2
+     */
+    public long getQuantile(double quantile) {
+        long total = getCount();
+        if (total == 0)
+            return 0;
+        long target = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i].sum();
+            if (seen >= Math.max(1, target))
+                return Math.min(i < Long.SIZE - 1 ? (1L << i) - 1 : Long.MAX_VALUE, getMax());
+        }
+        return getMax();
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets)
+            bucket.reset();
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,123 @@
+package com.direwolf20.core.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runtime metrics of the core, meant to correlate gadget load with tick times on live servers. All {@link Counter Counters} and
+ * {@link Histogram Histograms} are defined here.
+ * <p>
+ * Collection is disabled by default, in which case recording a value costs a single volatile read. While enabled, counters are
+ * striped ({@link java.util.concurrent.atomic.LongAdder}) and timings are only sampled for every {@link #getSampleRate() n-th} call.
+ */
+public enum Metrics {
+    ;
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    public static final Counter CAPABILITY_PROVIDERS_CREATED = counter("capability_providers_created");
+    public static final Counter NBT_DESERIALIZATIONS_DEFERRED = counter("nbt_deserializations_deferred");
+    public static final Counter NBT_DESERIALIZATIONS_DECODED = counter("nbt_deserializations_decoded");
+    public static final Counter NBT_SERIALIZATIONS_UNTOUCHED = counter("nbt_serializations_untouched");
+    public static final Counter SHARE_TAGS_NBT = counter("share_tags_nbt");
+    public static final Counter SHARE_TAGS_COMPACT = counter("share_tags_compact");
+    public static final Counter SHARE_TAG_COMPACT_BYTES = counter("share_tag_compact_bytes");
+    public static final Counter TRAIT_READS = counter("trait_reads");
+    public static final Counter UPGRADE_INSTALLS = counter("upgrade_installs");
+    public static final Counter ENERGY_TRANSACTIONS = counter("energy_transactions");
+
+    //server side handling of a gadget use, including synchronous planning and scheduling
+    public static final Histogram GADGET_ACTIONS = histogram("gadget_action_nanos");
+    //reserving energy and materials for a finished plan and queueing it, also when planning completed asynchronously
+    public static final Histogram PLACEMENT_SCHEDULING = histogram("placement_schedule_nanos");
+
+    private static volatile boolean enabled = false;
+    private static volatile int sampleRate = 1;
+    private static volatile long enabledSince = 0;
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = new Histogram(name);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        if (enabled && ! Metrics.enabled)
+            enabledSince = System.currentTimeMillis();
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return n, if only every n-th timing is recorded
+     */
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+
+    public static void setSampleRate(int sampleRate) {
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("Sample rate must be positive, got " + sampleRate);
+        Metrics.sampleRate = sampleRate;
+    }
+
+    public static List<Counter> getCounters() {
+        return Collections.unmodifiableList(COUNTERS);
+    }
+
+    public static List<Histogram> getHistograms() {
+        return Collections.unmodifiableList(HISTOGRAMS);
+    }
+
+    public static void reset() {
+        COUNTERS.forEach(Counter::reset);
+        HISTOGRAMS.forEach(Histogram::reset);
+        enabledSince = System.currentTimeMillis();
+    }
+
+    /**
+     * @return A human readable report of all metrics, one line per metric
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "enabled=%s sample_rate=%d collecting_for=%ds", enabled, sampleRate,
+                enabled ? (System.currentTimeMillis() - enabledSince) / 1000 : 0));
+        for (Counter counter : COUNTERS)
+            lines.add(counter.getName() + "=" + counter.get());
+        for (Histogram histogram : HISTOGRAMS)
+            lines.add(String.format(Locale.ROOT, "%s count=%d mean=%.0f p50<=%d p90<=%d p99<=%d max=%d", histogram.getName(),
+                    histogram.getCount(), histogram.getMean(), histogram.getQuantile(0.5), histogram.getQuantile(0.9),
+                    histogram.getQuantile(0.99), histogram.getMax()));
+        return lines;
+    }
+
+    /**
+     * Writes the current {@link #report()} to the given file, prefixed with the current time.
+     *
+     * @param file The file to write to. Parent directories are created as needed.
+     * @throws IOException if the file could not be written
+     */
+    public static void dump(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("time=" + System.currentTimeMillis());
+        lines.addAll(report());
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+}
@@ -17,6 +17,9 @@ import java.util.Set;
  * Properties by limiting the access to the {@link Property} key. In order to give even more fine-grained access, one may restrict access
  * to the {@link MutableProperty}, but give free access to the {@link Property} - which simulates a read-only Property to the public!
  * <p>
+ * Containers are not thread safe. Code running off the main thread must only ever read from a {@link #snapshot()} taken on the
+ * main thread.
+ * <p>
  * Serialisation will write the values of <b>all</b> Properties into the resulting {@link CompoundNBT}, keyed by {@link Property#getName()}.
  * This results in all {@link Property Properties} within one container being forced to have unique names! It is up to the implementor
  * of the Property and the user of the container to ensure that migration stays possible...
@@ -31,4 +34,14 @@ public interface IPropertyContainer extends INBTSerializable<CompoundNBT> {
     <T> boolean setProperty(MutableProperty<T> property, T value);
 
     Set<Property<?>> listProperties();
+
+    /**
+     * Creates an immutable view of the current values of all {@link Property Properties}, which may be read from any thread.
+     * Implementations should return the same snapshot until they are modified.
+     *
+     * @return A {@link PropertySnapshot} of this container
+     */
+    default PropertySnapshot snapshot() {
+        return PropertySnapshot.copyOf(this);
+    }
 }
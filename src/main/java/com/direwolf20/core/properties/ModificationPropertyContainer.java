@@ -2,6 +2,7 @@ package com.direwolf20.core.properties;
 
 import net.minecraft.nbt.CompoundNBT;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -10,10 +11,16 @@ import java.util.function.BiConsumer;
  * A delegating {@link IPropertyContainer} implementation, which allows users to add a callback every time a Property changes.
  * Used for example by {@link com.direwolf20.core.capability.PropertyTraitCapabilityProvider} to keep track of changes made
  * to Properties.
+ * <p>
+ * As every modification passes through this container, it also caches the result of {@link #serializeNBT()} until the next
+ * modification or deserialisation. The returned {@link CompoundNBT} is therefore shared and must not be modified by the caller.
  */
 public final class ModificationPropertyContainer implements IPropertyContainer {
     private final IPropertyContainer delegate;
     private final BiConsumer<MutableProperty<?>, Object> onModificationCallback;
+    //the last serialized nbt, null if it needs to be re-serialized
+    @Nullable
+    private CompoundNBT serialized;
 
     public ModificationPropertyContainer(IPropertyContainer delegate, BiConsumer<MutableProperty<?>, Object> onModificationCallback) {
         this.delegate = delegate;
@@ -33,6 +40,7 @@ public final class ModificationPropertyContainer implements IPropertyContainer {
     @Override
     public <T> boolean setProperty(MutableProperty<T> property, T value) {
         if (delegate.setProperty(property, value)) {
+            serialized = null;
             onModificationCallback.accept(property, value);
             return true;
         }
@@ -44,13 +52,21 @@ public final class ModificationPropertyContainer implements IPropertyContainer {
         return delegate.listProperties();
     }
 
+    @Override
+    public PropertySnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
     @Override
     public CompoundNBT serializeNBT() {
-        return delegate.serializeNBT();
+        if (serialized == null)
+            serialized = delegate.serializeNBT();
+        return serialized;
     }
 
     @Override
     public void deserializeNBT(CompoundNBT nbt) {
+        serialized = null;
         delegate.deserializeNBT(nbt);
     }
 }
@@ -5,9 +5,11 @@ import net.minecraft.nbt.ByteNBT;
 import net.minecraft.nbt.FloatNBT;
 import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.IntNBT;
+import net.minecraft.nbt.StringNBT;
 import net.minecraft.util.ResourceLocation;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
@@ -17,11 +19,16 @@ import java.util.function.Function;
  * <p>
  * Notice that as of this writing a Property must be capable of serializing and deserializing it's values, as well as having a
  * {@link IPropertyContainer container} wide unique name.
+ * <p>
+ * Every Property is assigned an {@link #getOrdinal() ordinal} when it is built, which {@link PropertyContainer} uses to address
+ * it's values by array index. Ordinals are only stable for the lifetime of the JVM and are therefore never serialized.
  *
  * @param <T> The type of the values represented by this Property
  * @see IPropertyContainer
  */
 public final class Property<T> {
+    private static final AtomicInteger NEXT_ORDINAL = new AtomicInteger();
+    private final int ordinal;
     private final Class<T> type;
     private final String name;
     private final Function<T, INBT> serializer;
@@ -32,6 +39,7 @@ public final class Property<T> {
         this.name = Objects.requireNonNull(name, "Cannot have a property without a name!");
         this.serializer = Objects.requireNonNull(serializer, "Cannot have a property without a serializer!");
         this.deserializer = Objects.requireNonNull(deserializer, "Cannot have a property without a deserializer!");
+        this.ordinal = NEXT_ORDINAL.getAndIncrement();
     }
 
     /**
@@ -64,6 +72,24 @@ public final class Property<T> {
         return builder(Float.class).serializer(FloatNBT::valueOf).deserializer(inbt -> ((FloatNBT) inbt).getFloat());
     }
 
+    /**
+     * Values are serialized by name. Names which don't match any constant (for example because it was removed) deserialize to the first
+     * constant of the enum.
+     *
+     * @return A Builder pre-configured to create serializable Properties for the given enum. Only the name is missing.
+     */
+    public static <E extends Enum<E>> Builder<E> enumBuilder(Class<E> type) {
+        E[] constants = type.getEnumConstants();
+        return builder(type).serializer(value -> StringNBT.valueOf(value.name())).deserializer(inbt -> {
+            String name = ((StringNBT) inbt).getString();
+            for (E constant : constants) {
+                if (constant.name().equals(name))
+                    return constant;
+            }
+            return constants[0];
+        });
+    }
+
     T cast(Object value) {
         return type.cast(Objects.requireNonNull(value));
     }
@@ -72,6 +98,13 @@ public final class Property<T> {
         return name;
     }
 
+    /**
+     * @return the unique, non-negative ordinal of this Property
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     public INBT serializeValue(Object value) {
         if (value == null)
             return serialize(null);
@@ -91,6 +124,7 @@ public final class Property<T> {
         return MoreObjects.toStringHelper(this)
                 .add("type", type)
                 .add("name", name)
+                .add("ordinal", ordinal)
                 .toString();
     }
 
@@ -2,44 +2,61 @@ package com.direwolf20.core.properties;
 
 import com.direwolf20.core.DireCore20;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import net.minecraft.nbt.CompoundNBT;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
  * The default {@link IPropertyContainer} which is created using a {@link Builder} to add the {@link Property Properties}
  * represented by this container.
  * <p>
+ * Everything but the actual values is kept in an immutable {@link Layout}, which may be shared by any number of containers.
+ * A container itself therefore only holds a small array of values, which is addressed via the {@link Property#getOrdinal() ordinals}
+ * of the Properties - making {@link #getProperty(Property)} and {@link #setProperty(MutableProperty, Object)} plain array reads.
+ * <p>
+ * {@link #snapshot() Snapshots} are cached until the next modification.
+ * <p>
  * Notice that it does accept null values and serializers must handle this somehow!
  *
  * @see IPropertyContainer
  * @see Property
  */
 public final class PropertyContainer implements IPropertyContainer {
-    private final Map<Property<?>, Object> properties;
-    private final Map<String, Property<?>> propertyByName;
-    private final Set<MutableProperty<?>> mutableProperties;
-    
-    private PropertyContainer(Map<Property<?>, Object> properties, Map<String, Property<?>> propertyByName, Set<MutableProperty<?>> mutableProperties) {
-        this.properties = properties;
-        this.propertyByName = propertyByName;
-        this.mutableProperties = mutableProperties;
+    private final Layout layout;
+    private final Object[] values;
+    //null if it needs to be recomputed
+    @Nullable
+    private PropertySnapshot snapshot;
+
+    private PropertyContainer(Layout layout) {
+        this.layout = layout;
+        this.values = layout.copyDefaults();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    public Layout getLayout() {
+        return layout;
+    }
+
     @Override
     public <T> Optional<T> getProperty(Property<T> property) {
-        return Optional.ofNullable(properties.get(property))
-                .map(property::cast);
+        int index = layout.indexOf(property);
+        if (index < 0 || values[index] == null)
+            return Optional.empty();
+        return Optional.of(property.cast(values[index]));
     }
 
     @Override
     public <T> boolean setProperty(MutableProperty<T> property, T value) {
-        if (mutableProperties.contains(property)) {
-            properties.put(property.getProperty(), value);
+        int index = layout.indexOf(property.getProperty());
+        if (index >= 0 && layout.mutable.get(index)) {
+            values[index] = value;
+            snapshot = null;
             return true;
         }
         return false;
@@ -47,43 +64,126 @@ public final class PropertyContainer implements IPropertyContainer {
 
     @Override
     public Set<Property<?>> listProperties() {
-        return Collections.unmodifiableSet(properties.keySet());
+        return layout.propertySet;
+    }
+
+    @Override
+    public PropertySnapshot snapshot() {
+        if (snapshot == null)
+            snapshot = new PropertySnapshot(layout, values.clone());
+        return snapshot;
     }
 
     @Override
     public CompoundNBT serializeNBT() {
         CompoundNBT nbt = new CompoundNBT();
-        for (Map.Entry<Property<?>, Object> entry : properties.entrySet())
-            nbt.put(entry.getKey().getName(), entry.getKey().serializeValue(entry.getValue()));
+        for (int i = 0; i < values.length; i++)
+            nbt.put(layout.properties[i].getName(), layout.properties[i].serializeValue(values[i]));
         return nbt;
     }
 
     @Override
     public void deserializeNBT(CompoundNBT nbt) {
+        snapshot = null;
         for (String key : nbt.keySet()) {
-            Property<?> prop = propertyByName.get(key);
-            if (prop != null) //This implicitly also checks whether the property is already in here...
-                properties.put(prop, prop.deserialize(nbt.get(key)));
+            Integer index = layout.indexByName.get(key);
+            if (index != null) //This implicitly also checks whether the property is already in here...
+                values[index] = layout.properties[index].deserialize(nbt.get(key));
             else
                 DireCore20.LOG.warn("Attempted to deserialize unknown Property {}. This might just be a version difference - or a bug.", key);
         }
     }
 
+    /**
+     * The immutable part of a {@link PropertyContainer}: the available {@link Property Properties}, their indices, which of
+     * them are mutable and their default values. A Layout is meant to be created once per type of
+     * {@link net.minecraftforge.common.capabilities.ICapabilityProvider Provider} (for example once per Item) and then shared
+     * by all containers created from it via {@link #createContainer()}.
+     */
+    public static final class Layout {
+        private static final int[] NO_SLOTS = new int[0];
+        private final Property<?>[] properties;
+        private final Object[] defaults;
+        //index by ordinal - minOrdinal, -1 for properties not present in this layout
+        private final int[] slotByOrdinal;
+        private final int minOrdinal;
+        private final Map<String, Integer> indexByName;
+        //indexed by the property's index
+        private final BitSet mutable;
+        private final ImmutableSet<Property<?>> propertySet;
+
+        private Layout(Property<?>[] properties, Object[] defaults, BitSet mutable) {
+            this.properties = properties;
+            this.defaults = defaults;
+            this.mutable = mutable;
+            this.indexByName = new HashMap<>();
+            int min = Integer.MAX_VALUE;
+            int max = - 1;
+            for (Property<?> property : properties) {
+                min = Math.min(min, property.getOrdinal());
+                max = Math.max(max, property.getOrdinal());
+            }
+            this.minOrdinal = max >= 0 ? min : 0;
+            this.slotByOrdinal = max >= 0 ? new int[max - min + 1] : NO_SLOTS;
+            Arrays.fill(slotByOrdinal, - 1);
+            for (int i = 0; i < properties.length; i++) {
+                slotByOrdinal[properties[i].getOrdinal() - minOrdinal] = i;
+                indexByName.put(properties[i].getName(), i);
+            }
+            this.propertySet = ImmutableSet.copyOf(properties);
+        }
+
+        public PropertyContainer createContainer() {
+            return new PropertyContainer(this);
+        }
+
+        public int size() {
+            return properties.length;
+        }
+
+        /**
+         * @param property The {@link Property} to look up
+         * @return the index of the given Property in this layout or -1 if it is not present
+         */
+        public int indexOf(Property<?> property) {
+            int slot = property.getOrdinal() - minOrdinal;
+            return slot >= 0 && slot < slotByOrdinal.length ? slotByOrdinal[slot] : - 1;
+        }
+
+        public Property<?> getProperty(int index) {
+            return properties[index];
+        }
+
+        public ImmutableSet<Property<?>> getProperties() {
+            return propertySet;
+        }
+
+        Object[] copyDefaults() {
+            return defaults.clone();
+        }
+
+        public boolean isMutable(int index) {
+            return mutable.get(index);
+        }
+    }
+
     /**
      * A simple build for the {@link PropertyContainer}. Notice that it enforces the container to only contain properties with
      * distinc {@link Property#getName() names}, as per contract of {@link IPropertyContainer}!
+     * <p>
+     * Building a {@link Layout} once and creating containers from it should be preferred over calling {@link #build()}
+     * repeatedly, if many containers with the same Properties are needed.
      */
     public static final class Builder {
         private Map<Property<?>, Object> properties;
         private Map<String, Property<?>> propertyByName;
         //this is needed to allow the builder to degrade mutable properties to immutable ones
         private Map<Property<?>, MutableProperty<?>> propertyToMutableIndex;
-        private Set<MutableProperty<?>> mutableProperties;
 
         public Builder() {
-            this.properties = new IdentityHashMap<>();
+            //linked to keep the order in which properties were added, Properties don't override equals or hashCode
+            this.properties = new LinkedHashMap<>();
             this.propertyByName = new HashMap<>();
-            this.mutableProperties = Collections.newSetFromMap(new IdentityHashMap<>());
             this.propertyToMutableIndex = new IdentityHashMap<>();
         }
 
@@ -103,9 +203,7 @@ public final class PropertyContainer implements IPropertyContainer {
             properties.put(prop, value);
             propertyByName.put(prop.getName(), prop);
             //make sure that if we just replaced some mutable property with something immutable, it will no longer be mutable
-            MutableProperty<?> mutable = propertyToMutableIndex.remove(prop);
-            if (mutable != null)
-                mutableProperties.remove(mutable);
+            propertyToMutableIndex.remove(prop);
 
             return this;
         }
@@ -113,14 +211,23 @@ public final class PropertyContainer implements IPropertyContainer {
         public <T> Builder putProperty(MutableProperty<T> prop, T value) {
             putProperty(prop.getProperty(), value);
             //mark it as mutable
-            mutableProperties.add(prop);
             propertyToMutableIndex.put(prop.getProperty(), prop);
             return this;
         }
 
+        public Layout buildLayout() {
+            Property<?>[] props = properties.keySet().toArray(new Property<?>[0]);
+            Object[] defaults = properties.values().toArray();
+            BitSet mutable = new BitSet(props.length);
+            for (int i = 0; i < props.length; i++) {
+                if (propertyToMutableIndex.containsKey(props[i]))
+                    mutable.set(i);
+            }
+            return new Layout(props, defaults, mutable);
+        }
+
         public PropertyContainer build() {
-            //do not convert to ImmutableMap here, as string key's are not well-behaved and this would therefore be slower
-            return new PropertyContainer(properties, propertyByName, mutableProperties);
+            return buildLayout().createContainer();
         }
     }
 }
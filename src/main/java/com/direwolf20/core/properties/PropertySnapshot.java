@@ -0,0 +1,54 @@
+package com.direwolf20.core.properties;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+
+/**
+ * An immutable view of the values of an {@link IPropertyContainer}, as obtained via {@link IPropertyContainer#snapshot()}.
+ * Snapshots may be freely passed to and read from other threads, as long as the values themselves are immutable.
+ */
+public final class PropertySnapshot {
+    private final PropertyContainer.Layout layout;
+    //indexed by the layout's property index
+    private final Object[] values;
+
+    PropertySnapshot(PropertyContainer.Layout layout, Object[] values) {
+        this.layout = layout;
+        this.values = values;
+    }
+
+    /**
+     * Creates a snapshot of an arbitrary {@link IPropertyContainer}. Implementations should prefer sharing a cached snapshot, if they
+     * weren't modified since the last call to {@link IPropertyContainer#snapshot()}.
+     *
+     * @param container The container to copy all values from
+     * @return A new snapshot of the given container
+     */
+    public static PropertySnapshot copyOf(IPropertyContainer container) {
+        PropertyContainer.Builder builder = PropertyContainer.builder();
+        for (Property<?> property : container.listProperties())
+            putValue(builder, container, property);
+        PropertyContainer.Layout layout = builder.buildLayout();
+        return new PropertySnapshot(layout, layout.copyDefaults());
+    }
+
+    private static <T> void putValue(PropertyContainer.Builder builder, IPropertyContainer container, Property<T> property) {
+        builder.putProperty(property, container.getProperty(property).orElse(null));
+    }
+
+    public <T> Optional<T> getProperty(MutableProperty<T> property) {
+        return getProperty(property.getProperty());
+    }
+
+    public <T> Optional<T> getProperty(Property<T> property) {
+        int index = layout.indexOf(property);
+        if (index < 0 || values[index] == null)
+            return Optional.empty();
+        return Optional.of(property.cast(values[index]));
+    }
+
+    public ImmutableSet<Property<?>> listProperties() {
+        return layout.getProperties();
+    }
+}
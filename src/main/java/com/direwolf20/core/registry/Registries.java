@@ -9,19 +9,40 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
 import net.minecraftforge.registries.ForgeRegistry;
+import net.minecraftforge.registries.IForgeRegistryInternal;
 import net.minecraftforge.registries.RegistryBuilder;
+import net.minecraftforge.registries.RegistryManager;
 
 @EventBusSubscriber(bus = Bus.MOD)
 public enum Registries {
     ;
     public static final ResourceLocation UPGRADE_REGISTRY_NAME = new ResourceLocation(DireCore20.MOD_ID + ":upgrade_type");
     private static ForgeRegistry<Upgrade> UPGRADES = null;
+    private static volatile UpgradeLookup UPGRADE_LOOKUP = null;
 
     public static ForgeRegistry<Upgrade> getUpgradeRegistry() {
         Preconditions.checkState(UPGRADES != null, "Attempted to access Upgrade-Registry before it could be created!");
         return UPGRADES;
     }
 
+    /**
+     * @return The {@link UpgradeLookup} for the current state of the Upgrade-Registry. Prefer this over {@link #getUpgradeRegistry()}
+     * for resolving Upgrades by id or name on hot paths.
+     */
+    public static UpgradeLookup getUpgradeLookup() {
+        UpgradeLookup lookup = UPGRADE_LOOKUP;
+        if (lookup == null) { //not yet baked - the lookup will be replaced as soon as it is
+            lookup = createLookup(getUpgradeRegistry());
+            UPGRADE_LOOKUP = lookup;
+        }
+        return lookup;
+    }
+
+    //allows benchmarks to run without Forge's registries
+    static void setUpgradeLookup(UpgradeLookup lookup) {
+        UPGRADE_LOOKUP = lookup;
+    }
+
     @SubscribeEvent
     public static void onCreateRegistries(RegistryEvent.NewRegistry event) {
         DireCore20.LOG.debug("Creating Registries");
@@ -29,8 +50,18 @@ public enum Registries {
                 .setType(Upgrade.class)
                 .setName(UPGRADE_REGISTRY_NAME)
                 .setDefaultKey(Upgrade.UPGRADE_BLANK_RL)
+                .onBake(Registries::onBakeUpgrades)
                 .create();
         Upgrades.onUpgradesCreated();
         DireCore20.LOG.debug("Registry creation finished");
     }
+
+    private static void onBakeUpgrades(IForgeRegistryInternal<Upgrade> owner, RegistryManager stage) {
+        if (stage == RegistryManager.ACTIVE)
+            UPGRADE_LOOKUP = createLookup((ForgeRegistry<Upgrade>) owner);
+    }
+
+    private static UpgradeLookup createLookup(ForgeRegistry<Upgrade> registry) {
+        return UpgradeLookup.build(registry, registry::getID);
+    }
 }
@@ -0,0 +1,74 @@
+package com.direwolf20.core.registry;
+
+import com.direwolf20.core.traits.upgrade.Upgrade;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable snapshot of the Upgrade-Registry, which resolves {@link Upgrade Upgrades} by integer id or by registry name
+ * without parsing a {@link net.minecraft.util.ResourceLocation} or boxing any id. It is rebuilt by {@link Registries} every time
+ * the registry is baked - which happens after registration as well as after the ids were synced from a server.
+ * <p>
+ * Use {@link #build(Iterable, ToIntFunction)} to create a lookup independent of Forge's registries, for example in benchmarks.
+ */
+public final class UpgradeLookup {
+    private final Upgrade[] byId;
+    private final Map<String, Upgrade> byName;
+    private final IdentityHashMap<Upgrade, Integer> ids;
+
+    private UpgradeLookup(Upgrade[] byId, Map<String, Upgrade> byName, IdentityHashMap<Upgrade, Integer> ids) {
+        this.byId = byId;
+        this.byName = byName;
+        this.ids = ids;
+    }
+
+    /**
+     * @param upgrades   The Upgrades to include. Each of them must have a registry name.
+     * @param idFunction The function providing the non-negative integer id of each Upgrade
+     * @return A new lookup for the given Upgrades
+     */
+    public static UpgradeLookup build(Iterable<Upgrade> upgrades, ToIntFunction<Upgrade> idFunction) {
+        Upgrade[] byId = new Upgrade[16];
+        ImmutableMap.Builder<String, Upgrade> byName = ImmutableMap.builder();
+        IdentityHashMap<Upgrade, Integer> ids = new IdentityHashMap<>();
+        for (Upgrade upgrade : upgrades) {
+            int id = idFunction.applyAsInt(upgrade);
+            if (id < 0)
+                continue;
+            if (id >= byId.length)
+                byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+            byId[id] = upgrade;
+            assert upgrade.getRegistryName() != null;
+            byName.put(upgrade.getRegistryName().toString(), upgrade);
+            ids.put(upgrade, id);
+        }
+        return new UpgradeLookup(byId, byName.build(), ids);
+    }
+
+    @Nullable
+    public Upgrade getValue(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * @param name The String representation of the Upgrade's registry name
+     * @return The Upgrade registered with this name or null if there is none
+     */
+    @Nullable
+    public Upgrade getValue(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @return The id of the given Upgrade or -1 if it is not known to this lookup
+     */
+    public int getID(Upgrade upgrade) {
+        Integer id = ids.get(upgrade);
+        return id != null ? id : - 1;
+    }
+}
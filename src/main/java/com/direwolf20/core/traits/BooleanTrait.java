@@ -0,0 +1,29 @@
+package com.direwolf20.core.traits;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link Trait} representing a boolean value. The value of a BooleanTrait can be retrieved without boxing via
+ * {@link ITraitContainer#getBoolean(BooleanTrait, boolean)} and modificators implementing {@link com.direwolf20.core.traits.upgrade.BooleanModificator}
+ * will be applied without boxing as well.
+ */
+public final class BooleanTrait extends Trait<Boolean> {
+    private BooleanTrait(String name) {
+        super(Boolean.class, name);
+    }
+
+    public static BooleanTrait createNamespaced(String namespace, String path) {
+        return new BooleanTrait(namespace + ":" + path);
+    }
+
+    public static BooleanTrait createNamespaced(ResourceLocation name) {
+        return new BooleanTrait(name.toString());
+    }
+
+    @Override
+    TraitValue<Boolean> createValue(Supplier<Boolean> defaultSupplier, boolean volatileDefault) {
+        return new TraitValue.BooleanValue(defaultSupplier, volatileDefault);
+    }
+}
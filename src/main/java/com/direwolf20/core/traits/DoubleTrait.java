@@ -0,0 +1,29 @@
+package com.direwolf20.core.traits;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link Trait} representing a double value. The value of a DoubleTrait can be retrieved without boxing via
+ * {@link ITraitContainer#getDouble(DoubleTrait, double)} and modificators implementing {@link java.util.function.DoubleUnaryOperator}
+ * will be applied without boxing as well.
+ */
+public final class DoubleTrait extends Trait<Double> {
+    private DoubleTrait(String name) {
+        super(Double.class, name);
+    }
+
+    public static DoubleTrait createNamespaced(String namespace, String path) {
+        return new DoubleTrait(namespace + ":" + path);
+    }
+
+    public static DoubleTrait createNamespaced(ResourceLocation name) {
+        return new DoubleTrait(name.toString());
+    }
+
+    @Override
+    TraitValue<Double> createValue(Supplier<Double> defaultSupplier, boolean volatileDefault) {
+        return new TraitValue.DoubleValue(defaultSupplier, volatileDefault);
+    }
+}
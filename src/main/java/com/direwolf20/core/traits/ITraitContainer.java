@@ -24,11 +24,45 @@ import java.util.stream.Collectors;
  * needed. For example instead of checking the base cost to mine some block and then adding the cost for every installed upgrade,
  * one can directly query {@code container.getTrait(Trait.ACTION_COST)} and get the appropriate value.
  * <p>
+ * Values of {@link IntTrait IntTraits}, {@link DoubleTrait DoubleTraits} and {@link BooleanTrait BooleanTraits} should be queried
+ * via {@link #getInt(IntTrait, int)}, {@link #getDouble(DoubleTrait, double)} and {@link #getBoolean(BooleanTrait, boolean)}
+ * on hot paths, as these neither box the value nor allocate an {@link Optional}.
+ * <p>
+ * Containers are not thread safe. Code running off the main thread must only ever read from a {@link #snapshot()} taken on the
+ * main thread.
+ * <p>
  * Serialisation will only serialize and deserialize the installed upgrades. Traits will not be affected (as they aren't even serializable).
  */
 public interface ITraitContainer extends INBTSerializable<CompoundNBT> {
     <T> Optional<T> getTrait(Trait<T> trait);
 
+    /**
+     * @param trait        The {@link IntTrait} to query
+     * @param defaultValue The value to return if the trait is not present in this container
+     * @return The value of the given trait, or defaultValue if it isn't present
+     */
+    default int getInt(IntTrait trait, int defaultValue) {
+        return getTrait(trait).orElse(defaultValue);
+    }
+
+    /**
+     * @param trait        The {@link DoubleTrait} to query
+     * @param defaultValue The value to return if the trait is not present in this container
+     * @return The value of the given trait, or defaultValue if it isn't present
+     */
+    default double getDouble(DoubleTrait trait, double defaultValue) {
+        return getTrait(trait).orElse(defaultValue);
+    }
+
+    /**
+     * @param trait        The {@link BooleanTrait} to query
+     * @param defaultValue The value to return if the trait is not present in this container
+     * @return The value of the given trait, or defaultValue if it isn't present
+     */
+    default boolean getBoolean(BooleanTrait trait, boolean defaultValue) {
+        return getTrait(trait).orElse(defaultValue);
+    }
+
     Set<UpgradeStack> listTiers();
 
     Set<Trait<?>> listTraits();
@@ -37,6 +71,16 @@ public interface ITraitContainer extends INBTSerializable<CompoundNBT> {
         return listTiers().stream().map(UpgradeStack::getUpgrade).collect(Collectors.toSet());
     }
 
+    /**
+     * Creates an immutable view of the current values of all {@link Trait Traits}, which may be read from any thread. Implementations
+     * should return the same snapshot until they are modified.
+     *
+     * @return A {@link TraitSnapshot} of this container
+     */
+    default TraitSnapshot snapshot() {
+        return TraitSnapshot.copyOf(this);
+    }
+
     boolean installUpgrade(UpgradeStack upgrade);
 
     boolean removeUpgrade(UpgradeStack upgrade);
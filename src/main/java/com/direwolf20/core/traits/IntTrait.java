@@ -0,0 +1,29 @@
+package com.direwolf20.core.traits;
+
+import net.minecraft.util.ResourceLocation;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link Trait} representing an int value. The value of an IntTrait can be retrieved without boxing via
+ * {@link ITraitContainer#getInt(IntTrait, int)} and modificators implementing {@link java.util.function.IntUnaryOperator}
+ * will be applied without boxing as well.
+ */
+public final class IntTrait extends Trait<Integer> {
+    private IntTrait(String name) {
+        super(Integer.class, name);
+    }
+
+    public static IntTrait createNamespaced(String namespace, String path) {
+        return new IntTrait(namespace + ":" + path);
+    }
+
+    public static IntTrait createNamespaced(ResourceLocation name) {
+        return new IntTrait(name.toString());
+    }
+
+    @Override
+    TraitValue<Integer> createValue(Supplier<Integer> defaultSupplier, boolean volatileDefault) {
+        return new TraitValue.IntValue(defaultSupplier, volatileDefault);
+    }
+}
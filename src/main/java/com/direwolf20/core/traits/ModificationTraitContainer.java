@@ -4,6 +4,7 @@ import com.direwolf20.core.traits.upgrade.Upgrade;
 import com.direwolf20.core.traits.upgrade.UpgradeStack;
 import net.minecraft.nbt.CompoundNBT;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -12,10 +13,18 @@ import java.util.function.BiConsumer;
  * is installed or uninstalled.
  * Used for example by {@link com.direwolf20.core.capability.PropertyTraitCapabilityProvider} to keep track of changes made
  * to Traits.
+ * <p>
+ * As every modification passes through this container, it also caches the result of {@link #serializeNBT(boolean)} until the
+ * next modification or deserialisation. The returned {@link CompoundNBT} is therefore shared and must not be modified by the caller.
  */
 public final class ModificationTraitContainer implements ITraitContainer{
     private final ITraitContainer delegate;
     private final BiConsumer<UpgradeStack, Boolean> upgradeCallback;
+    //the last serialized nbt for persistent and non-persistent serialisation, null if it needs to be re-serialized
+    @Nullable
+    private CompoundNBT persistentNBT;
+    @Nullable
+    private CompoundNBT syncNBT;
 
     public ModificationTraitContainer(ITraitContainer delegate, BiConsumer<UpgradeStack, Boolean> upgradeCallback) {
         this.delegate = delegate;
@@ -27,6 +36,21 @@ public final class ModificationTraitContainer implements ITraitContainer{
         return delegate.getTrait(trait);
     }
 
+    @Override
+    public int getInt(IntTrait trait, int defaultValue) {
+        return delegate.getInt(trait, defaultValue);
+    }
+
+    @Override
+    public double getDouble(DoubleTrait trait, double defaultValue) {
+        return delegate.getDouble(trait, defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(BooleanTrait trait, boolean defaultValue) {
+        return delegate.getBoolean(trait, defaultValue);
+    }
+
     @Override
     public Set<UpgradeStack> listTiers() {
         return delegate.listTiers();
@@ -42,9 +66,15 @@ public final class ModificationTraitContainer implements ITraitContainer{
         return delegate.listUpgrades();
     }
 
+    @Override
+    public TraitSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
     @Override
     public boolean installUpgrade(UpgradeStack upgrade) {
         if (delegate.installUpgrade(upgrade)) {
+            markDirty();
             this.upgradeCallback.accept(upgrade, true);
             return true;
         }
@@ -54,6 +84,7 @@ public final class ModificationTraitContainer implements ITraitContainer{
     @Override
     public boolean removeUpgrade(UpgradeStack upgrade) {
         if (delegate.removeUpgrade(upgrade)) {
+            markDirty();
             this.upgradeCallback.accept(upgrade, false);
             return true;
         }
@@ -62,16 +93,29 @@ public final class ModificationTraitContainer implements ITraitContainer{
 
     @Override
     public CompoundNBT serializeNBT() {
-        return delegate.serializeNBT();
+        return serializeNBT(true);
     }
 
     @Override
     public CompoundNBT serializeNBT(boolean persistend) {
-        return delegate.serializeNBT(persistend);
+        if (persistend) {
+            if (persistentNBT == null)
+                persistentNBT = delegate.serializeNBT(true);
+            return persistentNBT;
+        }
+        if (syncNBT == null)
+            syncNBT = delegate.serializeNBT(false);
+        return syncNBT;
     }
 
     @Override
     public void deserializeNBT(CompoundNBT nbt) {
+        markDirty();
         delegate.deserializeNBT(nbt);
     }
+
+    private void markDirty() {
+        persistentNBT = null;
+        syncNBT = null;
+    }
 }
@@ -7,26 +7,31 @@ import com.google.common.base.Preconditions;
 import net.minecraft.util.ResourceLocation;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * A Trait is some intrinsic upgradable characteristic of an {@link net.minecraftforge.common.capabilities.ICapabilityProvider Capability Provider}.
  * The value of an Trait may be queried from {@link ITraitContainer Trait Containers}, if the trait is present. It specifically represents only
  * a (possibly named) key for some value, which may be retrieved in a type safe way by casting it to the type passed into the constructor.
  *
+ * <p>
+ * For int, double and boolean values the specialised {@link IntTrait}, {@link DoubleTrait} and {@link BooleanTrait} should be
+ * preferred, as their values can be resolved and queried without boxing.
+ *
  * @param <T> The type of value represented by the Trait
  */
-public final class Trait<T> {
-    public static final Trait<Boolean> SILK_TOUCH = createNamespaced(Boolean.class, DireCore20.MOD_ID, "silk_touch");
-    public static final Trait<Integer> MAX_ENERGY = createNamespaced(Integer.class, DireCore20.MOD_ID, "max_energy");
-    public static final Trait<Integer> MAX_RECEIVE = createNamespaced(Integer.class, DireCore20.MOD_ID, "max_receive");
-    public static final Trait<Integer> MAX_EXTRACT = createNamespaced(Integer.class, DireCore20.MOD_ID, "max_extract");
-    public static final Trait<Integer> MAX_SIZE = createNamespaced(Integer.class, DireCore20.MOD_ID, "max_size");
-    public static final Trait<Integer> MAX_RANGE = createNamespaced(Integer.class, DireCore20.MOD_ID, "max_range");
-    public static final Trait<Integer> ACTION_COST = createNamespaced(Integer.class, DireCore20.MOD_ID, "action_cost");
+public class Trait<T> {
+    public static final BooleanTrait SILK_TOUCH = BooleanTrait.createNamespaced(DireCore20.MOD_ID, "silk_touch");
+    public static final IntTrait MAX_ENERGY = IntTrait.createNamespaced(DireCore20.MOD_ID, "max_energy");
+    public static final IntTrait MAX_RECEIVE = IntTrait.createNamespaced(DireCore20.MOD_ID, "max_receive");
+    public static final IntTrait MAX_EXTRACT = IntTrait.createNamespaced(DireCore20.MOD_ID, "max_extract");
+    public static final IntTrait MAX_SIZE = IntTrait.createNamespaced(DireCore20.MOD_ID, "max_size");
+    public static final IntTrait MAX_RANGE = IntTrait.createNamespaced(DireCore20.MOD_ID, "max_range");
+    public static final IntTrait ACTION_COST = IntTrait.createNamespaced(DireCore20.MOD_ID, "action_cost");
     private final Class<T> type;
     private final String name;
 
-    private Trait(Class<T> type, String name) {
+    Trait(Class<T> type, String name) {
         Preconditions.checkNotNull(name);
         Preconditions.checkArgument(!name.isEmpty());
         this.type = Objects.requireNonNull(type);
@@ -41,6 +46,10 @@ public final class Trait<T> {
         return new Trait<>(type, name.toString());
     }
 
+    TraitValue<T> createValue(Supplier<T> defaultSupplier, boolean volatileDefault) {
+        return new TraitValue.ObjectValue<>(defaultSupplier, volatileDefault);
+    }
+
     T cast(Object v) {
         return type.cast(Objects.requireNonNull(v));
     }
@@ -1,40 +1,95 @@
 package com.direwolf20.core.traits;
 
+import com.direwolf20.core.metrics.Metrics;
 import com.direwolf20.core.traits.upgrade.Upgrade;
 import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import com.google.common.collect.ImmutableSet;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraftforge.common.util.Constants.NBT;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * The default implementation for an {@link ITraitContainer} which is created via it's own {@link Builder}, to add
  * the {@link Trait Trait's} which are available from this container.
+ * <p>
+ * All information which is independent of installed upgrades (the available traits, their indices and their default values)
+ * is kept in an immutable {@link Layout}, which may be shared by any number of containers. Such containers then only
+ * allocate per-container state for traits which actually have an upgrade applied to them.
+ * <p>
+ * {@link #snapshot() Snapshots} are cached until the next modification (or until a volatile default changes). All containers
+ * without any upgrade installed share the same snapshot of their layout.
  */
 public final class TraitContainer implements ITraitContainer {
     private static final String KEY_INSTALLED_UPGRADES = "installed_upgrades";
-    private Map<Trait<?>, TraitValue<?>> traits;
+    private final Layout layout;
+    //lazily created, indexed by the layout's trait index - null entries resolve to the shared default
+    @Nullable
+    private TraitValue<?>[] values;
     //for ease of lookup
     private Set<Upgrade> installedUpgrades;
     private Set<UpgradeStack> installedTiers;
-    private TraitContainer(Map<Trait<?>, TraitValue<?>> traits) {
-        this.traits = traits;
-        this.installedTiers = new LinkedHashSet<>();
-        this.installedUpgrades = new HashSet<>();
+    //null if it needs to be recomputed
+    @Nullable
+    private TraitSnapshot snapshot;
+
+    private TraitContainer(Layout layout) {
+        this.layout = layout;
+        this.installedTiers = Collections.emptySet();
+        this.installedUpgrades = Collections.emptySet();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    public Layout getLayout() {
+        return layout;
+    }
+
     @Override
     public <T> Optional<T> getTrait(Trait<T> trait) {
-        return Optional.ofNullable(traits.get(trait))
-                .map(TraitValue::getValue)
-                .map(trait::cast);
+        Metrics.TRAIT_READS.increment();
+        int index = layout.indexOf(trait);
+        if (index < 0)
+            return Optional.empty();
+        return Optional.of(trait.cast(resolve(index)));
+    }
+
+    //the casts below are safe, as the TraitValue for a trait is always created by the trait itself
+
+    @Override
+    public int getInt(IntTrait trait, int defaultValue) {
+        Metrics.TRAIT_READS.increment();
+        int index = layout.indexOf(trait);
+        if (index < 0)
+            return defaultValue;
+        TraitValue<?> value = getValue(index);
+        return value != null ? ((TraitValue.IntValue) value).getInt() : (Integer) layout.getDefault(index);
+    }
+
+    @Override
+    public double getDouble(DoubleTrait trait, double defaultValue) {
+        Metrics.TRAIT_READS.increment();
+        int index = layout.indexOf(trait);
+        if (index < 0)
+            return defaultValue;
+        TraitValue<?> value = getValue(index);
+        return value != null ? ((TraitValue.DoubleValue) value).getDouble() : (Double) layout.getDefault(index);
+    }
+
+    @Override
+    public boolean getBoolean(BooleanTrait trait, boolean defaultValue) {
+        Metrics.TRAIT_READS.increment();
+        int index = layout.indexOf(trait);
+        if (index < 0)
+            return defaultValue;
+        TraitValue<?> value = getValue(index);
+        return value != null ? ((TraitValue.BooleanValue) value).getBoolean() : (Boolean) layout.getDefault(index);
     }
 
     @Override
@@ -50,19 +105,40 @@ public final class TraitContainer implements ITraitContainer {
 
     @Override
     public Set<Trait<?>> listTraits() {
-        return Collections.unmodifiableSet(traits.keySet());
+        return layout.getTraits();
+    }
+
+    @Override
+    public TraitSnapshot snapshot() {
+        if (installedTiers.isEmpty() && values == null) //nothing was ever installed
+            return layout.getDefaultSnapshot();
+        TraitSnapshot current = snapshot;
+        if (current == null || ! isUpToDate(current)) {
+            Object[] resolved = new Object[layout.size()];
+            for (int i = 0; i < resolved.length; i++)
+                resolved[i] = resolve(i);
+            current = new TraitSnapshot(layout, resolved, ImmutableSet.copyOf(installedTiers));
+            snapshot = current;
+        }
+        return current;
     }
 
     @Override
     public boolean installUpgrade(UpgradeStack upgrade) {
         if (installedUpgrades.contains(upgrade.getUpgrade()) || installedTiers.contains(upgrade))
             return false;
-        if (! traits.keySet().containsAll(upgrade.getAppliedModifications()))
+        if (! layout.getTraits().containsAll(upgrade.getAppliedModifications()))
             return false;
         for (Trait<?> characteristic : upgrade.getAppliedModifications()) {
-            if (! applyModificator(characteristic, traits.get(characteristic), upgrade))
+            if (! applyModificator(characteristic, getOrCreateValue(layout.indexOf(characteristic)), upgrade))
                 throw new RuntimeException("Found inconsistency in registered upgrades and known upgrades by traits. This is a bug!");
         }
+        if (installedTiers.isEmpty()) {
+            installedTiers = new LinkedHashSet<>();
+            installedUpgrades = new HashSet<>();
+        }
+        snapshot = null;
+        Metrics.UPGRADE_INSTALLS.increment();
         return installedTiers.add(upgrade) && installedUpgrades.add(upgrade.getUpgrade());
     }
 
@@ -71,9 +147,11 @@ public final class TraitContainer implements ITraitContainer {
         if (! installedTiers.contains(upgrade) || ! installedUpgrades.contains(upgrade.getUpgrade()))
             return false;
         for (Trait<?> characteristic : upgrade.getAppliedModifications()) {
-            if (traits.get(characteristic).removeModificator(upgrade))
+            TraitValue<?> value = getValue(layout.indexOf(characteristic));
+            if (value == null || ! value.removeModificator(upgrade))
                 throw new RuntimeException("Found inconsistency in registered upgrades and known upgrades by traits. This is a bug!");
         }
+        snapshot = null;
         return installedTiers.remove(upgrade) && installedUpgrades.remove(upgrade.getUpgrade());
     }
 
@@ -96,36 +174,169 @@ public final class TraitContainer implements ITraitContainer {
         if (! installedTiers.isEmpty()) { //shortcut the common case of no upgrade being installed
             installedUpgrades.clear();
             installedTiers.clear();
-            for (TraitValue<?> val : traits.values())
-                val.clearModificators();
+            //dropping the values resets all traits back to their shared defaults
+            values = null;
+            snapshot = null;
         }
-        for (INBT serializedTier : list) {
-            UpgradeStack upgrade = UpgradeStack.deserialize((CompoundNBT) serializedTier);
-            installUpgrade(upgrade);
+        for (int i = 0; i < list.size(); i++) {
+            UpgradeStack upgrade = UpgradeStack.deserialize(list.getCompound(i));
+            if (upgrade != null)
+                installUpgrade(upgrade);
         }
     }
 
+    private Object resolve(int index) {
+        TraitValue<?> value = getValue(index);
+        return value != null ? value.getValue() : layout.getDefault(index);
+    }
+
+    //only volatile defaults can change without the container being modified
+    private boolean isUpToDate(TraitSnapshot snapshot) {
+        for (int index : layout.volatileIndices) {
+            if (! Objects.equals(resolve(index), snapshot.getValue(index)))
+                return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private TraitValue<?> getValue(int index) {
+        return values != null ? values[index] : null;
+    }
+
+    private TraitValue<?> getOrCreateValue(int index) {
+        if (values == null)
+            values = new TraitValue<?>[layout.size()];
+        TraitValue<?> value = values[index];
+        if (value == null) {
+            value = layout.createValue(index);
+            values[index] = value;
+        }
+        return value;
+    }
+
     @SuppressWarnings("unchecked")
     private <T> boolean applyModificator(Trait<T> characteristic, TraitValue<?> value, UpgradeStack upgrade) {
         return ((TraitValue<T>) value).addModificator(upgrade, upgrade.getModificatorFor(characteristic));
     }
 
+    /**
+     * The immutable part of a {@link TraitContainer}: the available {@link Trait Traits}, their indices and their default values.
+     * A Layout is meant to be created once per type of {@link net.minecraftforge.common.capabilities.ICapabilityProvider Provider}
+     * (for example once per Item) and then shared by all containers created from it via {@link #createContainer()}.
+     * <p>
+     * Non-volatile defaults are resolved once when the Layout is built, volatile defaults are queried every time the
+     * value of an unmodified trait is read.
+     */
+    public static final class Layout {
+        private final Trait<?>[] traits;
+        private final Supplier<?>[] defaultSuppliers;
+        private final boolean[] volatileDefaults;
+        private final int[] volatileIndices;
+        //resolved defaults, null for volatile defaults
+        private final Object[] defaults;
+        //Traits don't override hashcode or equals... IdentityHashMap for the win!
+        private final IdentityHashMap<Trait<?>, Integer> indices;
+        private final ImmutableSet<Trait<?>> traitSet;
+        //racy single check, snapshots are immutable
+        @Nullable
+        private TraitSnapshot defaultSnapshot;
+
+        private Layout(Trait<?>[] traits, Supplier<?>[] defaultSuppliers, boolean[] volatileDefaults) {
+            this.traits = traits;
+            this.defaultSuppliers = defaultSuppliers;
+            this.volatileDefaults = volatileDefaults;
+            this.defaults = new Object[traits.length];
+            this.indices = new IdentityHashMap<>(traits.length);
+            for (int i = 0; i < traits.length; i++) {
+                indices.put(traits[i], i);
+                if (! volatileDefaults[i])
+                    defaults[i] = traits[i].cast(defaultSuppliers[i].get());
+            }
+            this.traitSet = ImmutableSet.copyOf(traits);
+            this.volatileIndices = IntStream.range(0, traits.length).filter(i -> volatileDefaults[i]).toArray();
+        }
+
+        public TraitContainer createContainer() {
+            return new TraitContainer(this);
+        }
+
+        public int size() {
+            return traits.length;
+        }
+
+        public ImmutableSet<Trait<?>> getTraits() {
+            return traitSet;
+        }
+
+        /**
+         * @param trait The {@link Trait} to look up
+         * @return the index of the given trait in this layout or -1 if it is not present
+         */
+        public int indexOf(Trait<?> trait) {
+            Integer index = indices.get(trait);
+            return index != null ? index : - 1;
+        }
+
+        public Trait<?> getTrait(int index) {
+            return traits[index];
+        }
+
+        Object getDefault(int index) {
+            return volatileDefaults[index] ? traits[index].cast(defaultSuppliers[index].get()) : defaults[index];
+        }
+
+        /**
+         * @return the snapshot of a container created from this layout, which has no upgrades installed
+         */
+        TraitSnapshot getDefaultSnapshot() {
+            TraitSnapshot snapshot = defaultSnapshot;
+            if (snapshot == null || ! isDefaultUpToDate(snapshot)) {
+                Object[] values = new Object[traits.length];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = getDefault(i);
+                snapshot = new TraitSnapshot(this, values, ImmutableSet.of());
+                defaultSnapshot = snapshot;
+            }
+            return snapshot;
+        }
+
+        private boolean isDefaultUpToDate(TraitSnapshot snapshot) {
+            for (int index : volatileIndices) {
+                if (! Objects.equals(getDefault(index), snapshot.getValue(index)))
+                    return false;
+            }
+            return true;
+        }
+
+        private TraitValue<?> createValue(int index) {
+            return createValue(traits[index], defaultSuppliers[index], volatileDefaults[index]);
+        }
+
+        @SuppressWarnings("unchecked") //the builder only accepts suppliers matching the trait's type
+        private static <T> TraitValue<T> createValue(Trait<T> trait, Supplier<?> defaultSupplier, boolean volatileDefault) {
+            return trait.createValue((Supplier<T>) defaultSupplier, volatileDefault);
+        }
+    }
+
     /**
      * A very minimalistic builder which allows specifying of {@link Trait Traits} for the {@link TraitContainer}.
-     * Notice how it defines the backing map for the container as an {@link IdentityHashMap}...
+     * Building a {@link Layout} once and creating containers from it should be preferred over calling {@link #build()}
+     * repeatedly, if many containers with the same Traits are needed.
      */
     public static final class Builder {
-        private final Map<Trait<?>, TraitValue<?>> traits;
+        private final Map<Trait<?>, Supplier<?>> defaultSuppliers;
+        private final Set<Trait<?>> volatileTraits;
 
         private Builder() {
-            //Traits don't override hashcode or equals... IdentityHashMap for the win!
-            //We don't care about the slightly larger memory footprint compared to ImmutableMap
-            // - the performance is more important here
-            this.traits = new IdentityHashMap<>();
+            //Traits don't override hashcode or equals - the linked map is used to keep the order in which they were added
+            this.defaultSuppliers = new LinkedHashMap<>();
+            this.volatileTraits = Collections.newSetFromMap(new IdentityHashMap<>());
         }
 
         /**
-         * Add/Replace a trait in this builder.
+         * Add/Replace a trait in this builder. The default value will only be queried once and is then cached alongside the
+         * modified value - use {@link #putVolatileTrait(Trait, Supplier)} if the default may change at runtime.
          *
          * @param trait           The {@link Trait} to add or replace
          * @param defaultSupplier The default value supplier for the trait
@@ -134,12 +345,49 @@ public final class TraitContainer implements ITraitContainer {
          * @throws NullPointerException if trait or defaultSupplier are null
          */
         public <T> Builder putTrait(Trait<T> trait, Supplier<T> defaultSupplier) {
-            this.traits.put(Objects.requireNonNull(trait), new TraitValue<>(Objects.requireNonNull(defaultSupplier)));
+            return putTrait(trait, defaultSupplier, false);
+        }
+
+        /**
+         * Add/Replace a trait in this builder, whose default value may change at runtime - for example because it is backed
+         * by a config value. The default supplier will be queried on every read, but upgrades will only be re-applied if the
+         * returned value changed.
+         *
+         * @param trait           The {@link Trait} to add or replace
+         * @param defaultSupplier The default value supplier for the trait
+         * @param <T>             The type of the trait and it's corresponding values
+         * @return The builder instance
+         * @throws NullPointerException if trait or defaultSupplier are null
+         */
+        public <T> Builder putVolatileTrait(Trait<T> trait, Supplier<T> defaultSupplier) {
+            return putTrait(trait, defaultSupplier, true);
+        }
+
+        private <T> Builder putTrait(Trait<T> trait, Supplier<T> defaultSupplier, boolean volatileDefault) {
+            this.defaultSuppliers.put(Objects.requireNonNull(trait), Objects.requireNonNull(defaultSupplier));
+            if (volatileDefault)
+                volatileTraits.add(trait);
+            else
+                volatileTraits.remove(trait);
             return this;
         }
 
+        public Layout buildLayout() {
+            Trait<?>[] traits = new Trait<?>[defaultSuppliers.size()];
+            Supplier<?>[] suppliers = new Supplier<?>[traits.length];
+            boolean[] volatileDefaults = new boolean[traits.length];
+            int i = 0;
+            for (Map.Entry<Trait<?>, Supplier<?>> entry : defaultSuppliers.entrySet()) {
+                traits[i] = entry.getKey();
+                suppliers[i] = entry.getValue();
+                volatileDefaults[i] = volatileTraits.contains(entry.getKey());
+                i++;
+            }
+            return new Layout(traits, suppliers, volatileDefaults);
+        }
+
         public TraitContainer build() {
-            return new TraitContainer(traits);
+            return buildLayout().createContainer();
         }
     }
 }
@@ -0,0 +1,84 @@
+package com.direwolf20.core.traits;
+
+import com.direwolf20.core.traits.upgrade.UpgradeStack;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * An immutable view of the resolved {@link Trait} values and installed {@link UpgradeStack Upgrades} of an {@link ITraitContainer},
+ * as obtained via {@link ITraitContainer#snapshot()}. All values are resolved when the snapshot is created, so reading them never
+ * runs any modification operator. Snapshots may therefore be freely passed to and read from other threads.
+ * <p>
+ * The values of volatile defaults are frozen as well - a snapshot does not reflect later config changes.
+ */
+public final class TraitSnapshot {
+    private final TraitContainer.Layout layout;
+    //indexed by the layout's trait index
+    private final Object[] values;
+    private final ImmutableSet<UpgradeStack> tiers;
+
+    TraitSnapshot(TraitContainer.Layout layout, Object[] values, ImmutableSet<UpgradeStack> tiers) {
+        this.layout = layout;
+        this.values = values;
+        this.tiers = tiers;
+    }
+
+    /**
+     * Creates a snapshot of an arbitrary {@link ITraitContainer}. Implementations should prefer sharing a cached snapshot, if they
+     * weren't modified since the last call to {@link ITraitContainer#snapshot()}.
+     *
+     * @param container The container to resolve all values from
+     * @return A new snapshot of the given container
+     */
+    public static TraitSnapshot copyOf(ITraitContainer container) {
+        TraitContainer.Builder builder = TraitContainer.builder();
+        for (Trait<?> trait : container.listTraits())
+            putResolved(builder, container, trait);
+        TraitContainer.Layout layout = builder.buildLayout();
+        Object[] values = new Object[layout.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = layout.getDefault(i);
+        return new TraitSnapshot(layout, values, ImmutableSet.copyOf(container.listTiers()));
+    }
+
+    private static <T> void putResolved(TraitContainer.Builder builder, ITraitContainer container, Trait<T> trait) {
+        T value = container.getTrait(trait).orElseThrow(() -> new IllegalStateException("Listed trait " + trait + " is not present!"));
+        builder.putTrait(trait, (Supplier<T>) () -> value);
+    }
+
+    public <T> Optional<T> getTrait(Trait<T> trait) {
+        int index = layout.indexOf(trait);
+        return index >= 0 ? Optional.of(trait.cast(values[index])) : Optional.empty();
+    }
+
+    //the casts below are safe, as the values were resolved from the corresponding TraitValue
+
+    public int getInt(IntTrait trait, int defaultValue) {
+        int index = layout.indexOf(trait);
+        return index >= 0 ? (Integer) values[index] : defaultValue;
+    }
+
+    public double getDouble(DoubleTrait trait, double defaultValue) {
+        int index = layout.indexOf(trait);
+        return index >= 0 ? (Double) values[index] : defaultValue;
+    }
+
+    public boolean getBoolean(BooleanTrait trait, boolean defaultValue) {
+        int index = layout.indexOf(trait);
+        return index >= 0 ? (Boolean) values[index] : defaultValue;
+    }
+
+    public ImmutableSet<UpgradeStack> listTiers() {
+        return tiers;
+    }
+
+    public ImmutableSet<Trait<?>> listTraits() {
+        return layout.getTraits();
+    }
+
+    Object getValue(int index) {
+        return values[index];
+    }
+}
@@ -1,45 +1,332 @@
 package com.direwolf20.core.traits;
 
+import com.direwolf20.core.traits.upgrade.BooleanModificator;
+import com.direwolf20.core.traits.upgrade.DoubleModificator;
+import com.direwolf20.core.traits.upgrade.IntModificator;
 import com.direwolf20.core.traits.upgrade.UpgradeStack;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 
 /**
  * Utility class for managing the value represented by a {@link Trait} in some {@link ITraitContainer}.
+ * <p>
+ * The resolved value is memoized and only recomputed after the installed modificators changed. Defaults which may change
+ * at runtime (for example because they are backed by a config value) must be marked as volatile, in which case the default
+ * supplier is queried on every read and the modificators are only re-applied if the default value changed.
+ * <p>
+ * Instances are created by {@link Trait#createValue(Supplier, boolean)}, so that {@link IntTrait}, {@link DoubleTrait} and
+ * {@link BooleanTrait} get a specialised implementation which resolves and caches their value without boxing. These
+ * implementations also fuse all {@link IntModificator.Sum sums}, {@link IntModificator.Product products} and
+ * {@link BooleanModificator.Constant overrides} into a single operation, in the order documented on {@link com.direwolf20.core.traits.upgrade.Upgrade}.
+ * Any other modificator is chained afterwards, in installation order.
  *
  * @param <T> The type of value
  */
-final class TraitValue<T> {
+abstract class TraitValue<T> {
     private final Supplier<T> defaultValue;
+    private final boolean volatileDefault;
     private final Map<UpgradeStack, UnaryOperator<T>> modificators;
 
-    TraitValue(Supplier<T> defaultValue) {
+    TraitValue(Supplier<T> defaultValue, boolean volatileDefault) {
         this.defaultValue = defaultValue;
+        this.volatileDefault = volatileDefault;
         this.modificators = new LinkedHashMap<>();
     }
 
-    T getValue() {
-        T base = defaultValue.get();
-        for (UnaryOperator<T> op : modificators.values())
-            base = op.apply(base);
-        return base;
-    }
+    abstract T getValue();
+
+    /**
+     * Called whenever the installed modificators change. Implementations must drop their cached value and may fuse the
+     * modificators into a more efficient representation.
+     */
+    abstract void onModificatorsChanged();
 
     boolean addModificator(UpgradeStack upgrade, UnaryOperator<T> unaryOperator) {
         if (modificators.containsKey(upgrade))
             return false;
         modificators.put(upgrade, unaryOperator);
+        onModificatorsChanged();
         return true;
     }
 
     boolean removeModificator(UpgradeStack upgrade) {
-        return modificators.remove(upgrade) != null;
+        if (modificators.remove(upgrade) != null) {
+            onModificatorsChanged();
+            return true;
+        }
+        return false;
     }
 
     void clearModificators() {
         modificators.clear();
+        onModificatorsChanged();
+    }
+
+    final T getDefault() {
+        return defaultValue.get();
+    }
+
+    final boolean isVolatileDefault() {
+        return volatileDefault;
+    }
+
+    final Collection<UnaryOperator<T>> getModificators() {
+        return modificators.values();
+    }
+
+    private static <T> List<UnaryOperator<T>> addChained(@Nullable List<UnaryOperator<T>> chained, UnaryOperator<T> op) {
+        if (chained == null)
+            chained = new ArrayList<>(2);
+        chained.add(op);
+        return chained;
+    }
+
+    static final class ObjectValue<T> extends TraitValue<T> {
+        //null if it needs to be recomputed
+        @Nullable
+        private T cachedValue;
+        //the default value cachedValue was computed from - only used for volatile defaults
+        @Nullable
+        private T cachedBase;
+
+        ObjectValue(Supplier<T> defaultValue, boolean volatileDefault) {
+            super(defaultValue, volatileDefault);
+        }
+
+        @Override
+        T getValue() {
+            if (isVolatileDefault()) {
+                T base = getDefault();
+                if (cachedValue == null || ! Objects.equals(base, cachedBase)) {
+                    cachedBase = base;
+                    cachedValue = applyModificators(base);
+                }
+                return cachedValue;
+            }
+            if (cachedValue == null)
+                cachedValue = applyModificators(getDefault());
+            return cachedValue;
+        }
+
+        @Override
+        void onModificatorsChanged() {
+            cachedValue = null;
+            cachedBase = null;
+        }
+
+        private T applyModificators(T base) {
+            for (UnaryOperator<T> op : getModificators())
+                base = op.apply(base);
+            return base;
+        }
+    }
+
+    static final class IntValue extends TraitValue<Integer> {
+        private int sum;
+        private int product = 1;
+        //modificators which could not be fused, null if there are none
+        @Nullable
+        private List<UnaryOperator<Integer>> chained;
+        private boolean valid;
+        private int cachedValue;
+        private int cachedBase;
+        //lazily boxed version of cachedValue, for the generic getValue
+        @Nullable
+        private Integer boxedValue;
+
+        IntValue(Supplier<Integer> defaultValue, boolean volatileDefault) {
+            super(defaultValue, volatileDefault);
+        }
+
+        int getInt() {
+            if (isVolatileDefault()) {
+                int base = getDefault();
+                if (! valid || base != cachedBase)
+                    recompute(base);
+                return cachedValue;
+            }
+            if (! valid)
+                recompute(getDefault());
+            return cachedValue;
+        }
+
+        @Override
+        Integer getValue() {
+            int value = getInt();
+            if (boxedValue == null)
+                boxedValue = value;
+            return boxedValue;
+        }
+
+        @Override
+        void onModificatorsChanged() {
+            sum = 0;
+            product = 1;
+            chained = null;
+            for (UnaryOperator<Integer> op : getModificators()) {
+                if (op instanceof IntModificator.Sum)
+                    sum += ((IntModificator.Sum) op).getAddend();
+                else if (op instanceof IntModificator.Product)
+                    product *= ((IntModificator.Product) op).getFactor();
+                else
+                    chained = addChained(chained, op);
+            }
+            valid = false;
+            boxedValue = null;
+        }
+
+        private void recompute(int base) {
+            int value = (base + sum) * product;
+            if (chained != null) {
+                for (int i = 0; i < chained.size(); i++) {
+                    UnaryOperator<Integer> op = chained.get(i);
+                    value = op instanceof IntUnaryOperator ? ((IntUnaryOperator) op).applyAsInt(value) : op.apply(value);
+                }
+            }
+            cachedBase = base;
+            cachedValue = value;
+            boxedValue = null;
+            valid = true;
+        }
+    }
+
+    static final class DoubleValue extends TraitValue<Double> {
+        private double sum;
+        private double product = 1;
+        //modificators which could not be fused, null if there are none
+        @Nullable
+        private List<UnaryOperator<Double>> chained;
+        private boolean valid;
+        private double cachedValue;
+        private double cachedBase;
+        //lazily boxed version of cachedValue, for the generic getValue
+        @Nullable
+        private Double boxedValue;
+
+        DoubleValue(Supplier<Double> defaultValue, boolean volatileDefault) {
+            super(defaultValue, volatileDefault);
+        }
+
+        double getDouble() {
+            if (isVolatileDefault()) {
+                double base = getDefault();
+                if (! valid || Double.compare(base, cachedBase) != 0)
+                    recompute(base);
+                return cachedValue;
+            }
+            if (! valid)
+                recompute(getDefault());
+            return cachedValue;
+        }
+
+        @Override
+        Double getValue() {
+            double value = getDouble();
+            if (boxedValue == null)
+                boxedValue = value;
+            return boxedValue;
+        }
+
+        @Override
+        void onModificatorsChanged() {
+            sum = 0;
+            product = 1;
+            chained = null;
+            for (UnaryOperator<Double> op : getModificators()) {
+                if (op instanceof DoubleModificator.Sum)
+                    sum += ((DoubleModificator.Sum) op).getAddend();
+                else if (op instanceof DoubleModificator.Product)
+                    product *= ((DoubleModificator.Product) op).getFactor();
+                else
+                    chained = addChained(chained, op);
+            }
+            valid = false;
+            boxedValue = null;
+        }
+
+        private void recompute(double base) {
+            double value = (base + sum) * product;
+            if (chained != null) {
+                for (int i = 0; i < chained.size(); i++) {
+                    UnaryOperator<Double> op = chained.get(i);
+                    value = op instanceof DoubleUnaryOperator ? ((DoubleUnaryOperator) op).applyAsDouble(value) : op.apply(value);
+                }
+            }
+            cachedBase = base;
+            cachedValue = value;
+            boxedValue = null;
+            valid = true;
+        }
+    }
+
+    static final class BooleanValue extends TraitValue<Boolean> {
+        private boolean overridden;
+        private boolean override;
+        //modificators which could not be fused, null if there are none
+        @Nullable
+        private List<UnaryOperator<Boolean>> chained;
+        private boolean valid;
+        private boolean cachedValue;
+        private boolean cachedBase;
+
+        BooleanValue(Supplier<Boolean> defaultValue, boolean volatileDefault) {
+            super(defaultValue, volatileDefault);
+        }
+
+        boolean getBoolean() {
+            if (isVolatileDefault()) {
+                boolean base = getDefault();
+                if (! valid || base != cachedBase)
+                    recompute(base);
+                return cachedValue;
+            }
+            if (! valid)
+                recompute(getDefault());
+            return cachedValue;
+        }
+
+        @Override
+        Boolean getValue() {
+            return getBoolean(); //Boolean.valueOf never allocates
+        }
+
+        @Override
+        void onModificatorsChanged() {
+            overridden = false;
+            override = true;
+            chained = null;
+            for (UnaryOperator<Boolean> op : getModificators()) {
+                if (op instanceof BooleanModificator.Constant) {
+                    overridden = true;
+                    //deactivation takes precedence
+                    override &= ((BooleanModificator.Constant) op).getValue();
+                } else
+                    chained = addChained(chained, op);
+            }
+            valid = false;
+        }
+
+        private void recompute(boolean base) {
+            boolean value = overridden ? override : base;
+            if (chained != null) {
+                for (int i = 0; i < chained.size(); i++) {
+                    UnaryOperator<Boolean> op = chained.get(i);
+                    value = op instanceof BooleanModificator ? ((BooleanModificator) op).applyAsBoolean(value) : op.apply(value);
+                }
+            }
+            cachedBase = base;
+            cachedValue = value;
+            valid = true;
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.direwolf20.core.traits.upgrade;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A modification function for {@link com.direwolf20.core.traits.BooleanTrait BooleanTraits}, which can be applied without boxing.
+ * It remains usable as a regular {@link UnaryOperator}, so that it can be returned from {@link Upgrade#getModificatorFor(com.direwolf20.core.traits.Trait, UpgradeStack)}.
+ * <p>
+ * The {@link Constant} implementation is a descriptor which is understood by the {@link com.direwolf20.core.traits.TraitContainer TraitContainer}:
+ * all constants installed for one Trait are fused into a single override. See {@link Upgrade} for how conflicting overrides are resolved.
+ */
+@FunctionalInterface
+public interface BooleanModificator extends UnaryOperator<Boolean> {
+    static BooleanModificator constant(boolean value) {
+        return value ? Constant.TRUE : Constant.FALSE;
+    }
+
+    boolean applyAsBoolean(boolean value);
+
+    @Override
+    default Boolean apply(Boolean value) {
+        return applyAsBoolean(value);
+    }
+
+    final class Constant implements BooleanModificator {
+        private static final Constant TRUE = new Constant(true);
+        private static final Constant FALSE = new Constant(false);
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        public boolean getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean applyAsBoolean(boolean value) {
+            return this.value;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("value", value)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.direwolf20.core.traits.upgrade;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * A modification function for {@link com.direwolf20.core.traits.DoubleTrait DoubleTraits}, which can be applied without boxing.
+ * It remains usable as a regular {@link UnaryOperator}, so that it can be returned from {@link Upgrade#getModificatorFor(com.direwolf20.core.traits.Trait, UpgradeStack)}.
+ * <p>
+ * The {@link Sum} and {@link Product} implementations are descriptors which are understood by the
+ * {@link com.direwolf20.core.traits.TraitContainer TraitContainer}: instead of chaining them, all sums and products installed
+ * for one Trait are fused into a single operation. See {@link Upgrade} for the order in which they are applied.
+ */
+@FunctionalInterface
+public interface DoubleModificator extends UnaryOperator<Double>, DoubleUnaryOperator {
+    static DoubleModificator sum(double addend) {
+        return new Sum(addend);
+    }
+
+    static DoubleModificator product(double factor) {
+        return new Product(factor);
+    }
+
+    @Override
+    default Double apply(Double value) {
+        return applyAsDouble(value);
+    }
+
+    final class Sum implements DoubleModificator {
+        private final double addend;
+
+        private Sum(double addend) {
+            this.addend = addend;
+        }
+
+        public double getAddend() {
+            return addend;
+        }
+
+        @Override
+        public double applyAsDouble(double value) {
+            return value + addend;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("addend", addend)
+                    .toString();
+        }
+    }
+
+    final class Product implements DoubleModificator {
+        private final double factor;
+
+        private Product(double factor) {
+            this.factor = factor;
+        }
+
+        public double getFactor() {
+            return factor;
+        }
+
+        @Override
+        public double applyAsDouble(double value) {
+            return value * factor;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("factor", factor)
+                    .toString();
+        }
+    }
+}
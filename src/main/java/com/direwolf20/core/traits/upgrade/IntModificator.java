@@ -0,0 +1,78 @@
+package com.direwolf20.core.traits.upgrade;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * A modification function for {@link com.direwolf20.core.traits.IntTrait IntTraits}, which can be applied without boxing.
+ * It remains usable as a regular {@link UnaryOperator}, so that it can be returned from {@link Upgrade#getModificatorFor(com.direwolf20.core.traits.Trait, UpgradeStack)}.
+ * <p>
+ * The {@link Sum} and {@link Product} implementations are descriptors which are understood by the
+ * {@link com.direwolf20.core.traits.TraitContainer TraitContainer}: instead of chaining them, all sums and products installed
+ * for one Trait are fused into a single operation. See {@link Upgrade} for the order in which they are applied.
+ */
+@FunctionalInterface
+public interface IntModificator extends UnaryOperator<Integer>, IntUnaryOperator {
+    static IntModificator sum(int addend) {
+        return new Sum(addend);
+    }
+
+    static IntModificator product(int factor) {
+        return new Product(factor);
+    }
+
+    @Override
+    default Integer apply(Integer value) {
+        return applyAsInt(value);
+    }
+
+    final class Sum implements IntModificator {
+        private final int addend;
+
+        private Sum(int addend) {
+            this.addend = addend;
+        }
+
+        public int getAddend() {
+            return addend;
+        }
+
+        @Override
+        public int applyAsInt(int value) {
+            return value + addend;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("addend", addend)
+                    .toString();
+        }
+    }
+
+    final class Product implements IntModificator {
+        private final int factor;
+
+        private Product(int factor) {
+            this.factor = factor;
+        }
+
+        public int getFactor() {
+            return factor;
+        }
+
+        @Override
+        public int applyAsInt(int value) {
+            return value * factor;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("factor", factor)
+                    .toString();
+        }
+    }
+}
@@ -6,11 +6,18 @@ import com.google.common.collect.ImmutableSet;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.registries.ForgeRegistryEntry;
 
+import javax.annotation.Nullable;
 import java.util.function.UnaryOperator;
 
 /**
  * An Upgrade type which can be installed in an {@link com.direwolf20.core.traits.ITraitContainer TraitContainer} to modify one or more
- * {@link Trait Traits}. Notice that as of this writing, there is no ordering imposed on Modifications - order may be arbitrary!
+ * {@link Trait Traits}.
+ * <p>
+ * The Modifications of all installed Upgrades are applied in a defined order, independent of the order in which the Upgrades were
+ * installed: first all {@link IntModificator.Sum sums} are added to the default value, then the result is multiplied with all
+ * {@link IntModificator.Product products} (the same holds for {@link DoubleModificator DoubleModificators}). For
+ * {@link BooleanModificator.Constant boolean overrides} deactivation takes precedence over activation. Any other (custom) Modification
+ * is applied to the result of this afterwards, in the order the Upgrades were installed.
  * <p>
  * The Upgrade decides upon the effects of installing it, whereas the {@link UpgradeStack} provides additional runtime Information
  * (for example the level of the upgrade). The connection between an Upgrade and an {@link UpgradeStack} as similar to the one between
@@ -20,9 +27,12 @@ public abstract class Upgrade extends ForgeRegistryEntry<Upgrade> {
     public static final ResourceLocation UPGRADE_BLANK_RL = new ResourceLocation(DireCore20.MOD_ID + ":blank");
 
     private final ImmutableSet<Trait<?>> modifcations;
+    //canonical UpgradeStacks by level, see UpgradeStack#of
+    private final UpgradeStack[] interned;
 
     public Upgrade(ImmutableSet<Trait<?>> modifcations) {
         this.modifcations = modifcations;
+        this.interned = new UpgradeStack[UpgradeStack.INTERNED_LEVELS];
     }
 
     public final ImmutableSet<Trait<?>> getAppliedModifications() {
@@ -31,6 +41,15 @@ public abstract class Upgrade extends ForgeRegistryEntry<Upgrade> {
 
     protected abstract boolean isValidLevel(int level);
 
+    @Nullable
+    UpgradeStack getInterned(int level) {
+        return interned[level];
+    }
+
+    void intern(UpgradeStack stack) {
+        interned[stack.getLevel()] = stack;
+    }
+
     /**
      * @param trait The {@link Trait} for which to retrieve a modification function.
      * @param tier  The {@link UpgradeStack} representing additional data for this upgrade.
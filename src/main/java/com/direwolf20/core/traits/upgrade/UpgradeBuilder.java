@@ -1,17 +1,29 @@
 package com.direwolf20.core.traits.upgrade;
 
+import com.direwolf20.core.traits.BooleanTrait;
+import com.direwolf20.core.traits.DoubleTrait;
+import com.direwolf20.core.traits.IntTrait;
 import com.direwolf20.core.traits.Trait;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Range;
 
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 import java.util.function.UnaryOperator;
 
 /**
  * A utility class for building upgrades for the most common use cases.
  * The resulting upgrades manage the modification functions in a {@link ImmutableMap map} and the valid Tier check via
  * a {@link Range} object.
+ * <p>
+ * The arithmetic and boolean modifiers created by this builder operate on primitives ({@link IntModificator},
+ * {@link DoubleModificator} and {@link BooleanModificator}), so that resolving the corresponding Trait does not need to box
+ * any values. The Tier dependent factor is computed once when the upgrade is installed - not every time the operator is applied.
+ * These operators are descriptors which allow the {@link com.direwolf20.core.traits.TraitContainer TraitContainer} to fuse all
+ * modifications of one Trait into a single operation, applied in the order documented on {@link Upgrade}. Operators added via
+ * {@link #putModification(Trait, Function)} are opaque and will be chained after the fused operation.
  */
 public final class UpgradeBuilder {
     private final ImmutableMap.Builder<Trait<?>, Function<UpgradeStack, UnaryOperator<?>>> modifications;
@@ -38,28 +50,28 @@ public final class UpgradeBuilder {
         return this;
     }
 
-    public UpgradeBuilder sumModifier(Trait<Integer> trait, Function<UpgradeStack, Integer> additionFactory) {
-        return putModification(trait, tieredUpgrade -> ((Integer i) -> (additionFactory.apply(tieredUpgrade) + i)));
+    public UpgradeBuilder sumModifier(IntTrait trait, ToIntFunction<UpgradeStack> additionFactory) {
+        return putModification(trait, tieredUpgrade -> IntModificator.sum(additionFactory.applyAsInt(tieredUpgrade)));
     }
 
-    public UpgradeBuilder floatSumModifier(Trait<Double> trait, Function<UpgradeStack, Double> additionFactory) {
-        return putModification(trait, tieredUpgrade -> ((Double d) -> (additionFactory.apply(tieredUpgrade) + d)));
+    public UpgradeBuilder floatSumModifier(DoubleTrait trait, ToDoubleFunction<UpgradeStack> additionFactory) {
+        return putModification(trait, tieredUpgrade -> DoubleModificator.sum(additionFactory.applyAsDouble(tieredUpgrade)));
     }
 
-    public UpgradeBuilder multiplicationModifier(Trait<Integer> trait, Function<UpgradeStack, Integer> multiplicationFactory) {
-        return putModification(trait, tieredUpgrade -> ((Integer i) -> (multiplicationFactory.apply(tieredUpgrade) * i)));
+    public UpgradeBuilder multiplicationModifier(IntTrait trait, ToIntFunction<UpgradeStack> multiplicationFactory) {
+        return putModification(trait, tieredUpgrade -> IntModificator.product(multiplicationFactory.applyAsInt(tieredUpgrade)));
     }
 
-    public UpgradeBuilder floatMultiplicationModifier(Trait<Double> trait, Function<UpgradeStack, Double> multiplicationFactory) {
-        return putModification(trait, tieredUpgrade -> ((Double d) -> (multiplicationFactory.apply(tieredUpgrade) * d)));
+    public UpgradeBuilder floatMultiplicationModifier(DoubleTrait trait, ToDoubleFunction<UpgradeStack> multiplicationFactory) {
+        return putModification(trait, tieredUpgrade -> DoubleModificator.product(multiplicationFactory.applyAsDouble(tieredUpgrade)));
     }
 
-    public UpgradeBuilder activationModifier(Trait<Boolean> trait) {
-        return putModification(trait, tieredUpgrade -> b -> Boolean.TRUE);
+    public UpgradeBuilder activationModifier(BooleanTrait trait) {
+        return putModification(trait, tieredUpgrade -> BooleanModificator.constant(true));
     }
 
-    public UpgradeBuilder deactivationModifier(Trait<Boolean> trait) {
-        return putModification(trait, tieredUpgrade -> b -> Boolean.FALSE);
+    public UpgradeBuilder deactivationModifier(BooleanTrait trait) {
+        return putModification(trait, tieredUpgrade -> BooleanModificator.constant(false));
     }
 
     public Upgrade build(Range<Integer> validTiers) {
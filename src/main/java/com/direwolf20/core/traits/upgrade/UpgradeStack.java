@@ -1,7 +1,9 @@
 package com.direwolf20.core.traits.upgrade;
 
 
+import com.direwolf20.core.DireCore20;
 import com.direwolf20.core.registry.Registries;
+import com.direwolf20.core.registry.UpgradeLookup;
 import com.direwolf20.core.traits.Trait;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
@@ -10,16 +12,22 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.util.Constants.NBT;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.function.UnaryOperator;
 
 /**
  * Data class providing a level to an {@link Upgrade} as well as serialisation Methods.
+ * <p>
+ * Instances for low levels are interned per {@link Upgrade} - use {@link #of(Upgrade, int)} instead of the constructor, to avoid
+ * allocating and validating a new instance each time.
  *
  * @see Upgrade
  */
 public final class UpgradeStack {
     private static final String KEY_UPGRADE_ID = "upgrade";
     private static final String KEY_TIER = "tier";
+    //levels [0, INTERNED_LEVELS) are interned
+    static final int INTERNED_LEVELS = 16;
     @Nonnull
     private final Upgrade upgrade;
     private final int level;
@@ -31,14 +39,50 @@ public final class UpgradeStack {
         this.level = level;
     }
 
+    /**
+     * @param upgrade The {@link Upgrade}
+     * @param level   The level of the Upgrade
+     * @return The canonical UpgradeStack for the given Upgrade and level, if the level is interned. A new instance otherwise.
+     * @throws IllegalArgumentException if the level is not valid for the given Upgrade
+     */
+    public static UpgradeStack of(Upgrade upgrade, int level) {
+        Preconditions.checkNotNull(upgrade);
+        if (level < 0 || level >= INTERNED_LEVELS)
+            return new UpgradeStack(upgrade, level);
+        UpgradeStack stack = upgrade.getInterned(level);
+        if (stack == null) { //racy, but all instances are equal anyway
+            stack = new UpgradeStack(upgrade, level);
+            upgrade.intern(stack);
+        }
+        return stack;
+    }
+
+    /**
+     * @param nbt The nbt as written by {@link #serializeNBT(boolean)}
+     * @return The deserialized UpgradeStack, or null if the Upgrade is unknown - for example because the mod which added it was
+     * removed - or the stored level isn't valid for it anymore
+     */
+    @Nullable
     public static UpgradeStack deserialize(CompoundNBT nbt) {
         int tier = nbt.getInt(KEY_TIER);
+        UpgradeLookup lookup = Registries.getUpgradeLookup();
         Upgrade upgrade;
-        if (nbt.contains(KEY_UPGRADE_ID, NBT.TAG_STRING))
-            upgrade = Registries.getUpgradeRegistry().getValue(new ResourceLocation(nbt.getString(KEY_UPGRADE_ID)));
-        else
-            upgrade = Registries.getUpgradeRegistry().getValue(nbt.getInt(KEY_UPGRADE_ID));
-        return new UpgradeStack(upgrade, tier);
+        //only ask the lookup - the registry has a default, which would turn unknown upgrades into blank ones
+        if (nbt.contains(KEY_UPGRADE_ID, NBT.TAG_STRING)) {
+            String name = nbt.getString(KEY_UPGRADE_ID);
+            upgrade = lookup.getValue(name);
+            if (upgrade == null) { //the name may lack its namespace. Malformed names are simply unknown.
+                ResourceLocation id = ResourceLocation.tryCreate(name);
+                upgrade = id != null ? lookup.getValue(id.toString()) : null;
+            }
+        } else {
+            upgrade = lookup.getValue(nbt.getInt(KEY_UPGRADE_ID));
+        }
+        if (upgrade == null || ! upgrade.isValidLevel(tier)) {
+            DireCore20.LOG.warn("Dropping unknown or invalid upgrade {}.", nbt);
+            return null;
+        }
+        return of(upgrade, tier);
     }
 
     @Nonnull
@@ -68,7 +112,7 @@ public final class UpgradeStack {
         if (persistent)
             compound.putString(KEY_UPGRADE_ID, getUpgrade().getRegistryName().toString());
         else
-            compound.putInt(KEY_UPGRADE_ID, Registries.getUpgradeRegistry().getID(getUpgrade()));
+            compound.putInt(KEY_UPGRADE_ID, Registries.getUpgradeLookup().getID(getUpgrade()));
         compound.putInt(KEY_TIER, level);
         return compound;
     }